@@ -45,6 +45,7 @@ import androidx.core.app.JobIntentService;
 import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 import androidx.exifinterface.media.ExifInterface;
+import falcosc.locus.addon.tasker.core.TrackTimeIndex;
 import falcosc.locus.addon.tasker.utils.Const;
 import falcosc.locus.addon.tasker.utils.ReportingHelper;
 import locus.api.android.utils.IntentHelper;
@@ -61,8 +62,7 @@ public final class GeotagPhotosService extends JobIntentService {
     private int progressEnd;
     private List<ErrorLine> fileErrors;
     private int fileProgress;
-    private List<Location> mPoints;
-    private long[] mPointTimestamps;
+    private TrackTimeIndex mTimeIndex;
     private long mTimeOffset;
     private AtomicInteger mOpenFiles;
 
@@ -210,9 +210,7 @@ public final class GeotagPhotosService extends JobIntentService {
     private void loadTrack(@Nullable Intent locusIntent) throws RequiredDataMissingException {
         try {
             Track t = IntentHelper.INSTANCE.getTrackFromIntent(this, Objects.requireNonNull(locusIntent));
-            mPoints = Objects.requireNonNull(t).getPoints();
-            mPoints.sort(Comparator.comparing(Location::getTime));
-            mPointTimestamps = mPoints.stream().mapToLong(Location::getTime).toArray();
+            mTimeIndex = new TrackTimeIndex(Objects.requireNonNull(t).getPoints());
             Log.i(TAG, "points: " + t.getPoints().size()); //NON-NLS
         } catch (Exception e) {
             Log.e(TAG, "Can't load track details", e); //NON-NLS
@@ -307,29 +305,6 @@ public final class GeotagPhotosService extends JobIntentService {
         startForeground(Const.NOTIFICATION_ID_GEOTAG, builder.build());
     }
 
-    @NonNull
-    private Location findNearestLocation(long time) {
-        int index = Arrays.binarySearch(mPointTimestamps, time);
-        if (index >= 0) {
-            //direct match
-            return mPoints.get(index);
-        }
-
-        index = -index - 1;
-        if (index == 0) {
-            // smaller than any
-            return mPoints.get(0);
-        } else if (index >= mPointTimestamps.length) {
-            // larger than any
-            return mPoints.get(mPointTimestamps.length - 1);
-        }
-
-        //index larger then time and index-1 is smaller then time
-        return ((mPointTimestamps[index] - time) < (time - mPointTimestamps[index - 1]))
-                ? mPoints.get(index)  //index is closer then index-1
-                : mPoints.get(index - 1);
-    }
-
     @RequiresApi(api = Build.VERSION_CODES.N)
     @Nullable
     private PendingExifChange findAndSetLocation(@NonNull Uri uri) {
@@ -415,7 +390,7 @@ public final class GeotagPhotosService extends JobIntentService {
         long time = Const.EXIF_DATE_FORMAT.parse(exifTime).getTime() + mTimeOffset;
         exif.setAttribute(ExifInterface.TAG_DATETIME, Const.EXIF_DATE_FORMAT.format(time));
 
-        Location loc = findNearestLocation(time);
+        Location loc = mTimeIndex.findNearestLocation(time);
         long timeDiff = Math.abs(loc.getTime() - time);
         if (timeDiff > DateUtils.HOUR_IN_MILLIS) {
             //noinspection NumericCastThatLosesPrecision because we don't need it
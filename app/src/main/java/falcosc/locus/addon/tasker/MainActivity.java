@@ -18,7 +18,9 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.preference.PreferenceManager;
 import falcosc.locus.addon.tasker.intent.edit.ActionTaskEdit;
+import falcosc.locus.addon.tasker.intent.edit.DiagnosticsEdit;
 import falcosc.locus.addon.tasker.intent.edit.LocusInfoEdit;
+import falcosc.locus.addon.tasker.intent.edit.MultiSourceEdit;
 import falcosc.locus.addon.tasker.intent.edit.NotImplementedActions;
 import falcosc.locus.addon.tasker.intent.edit.UpdateContainerEdit;
 import falcosc.locus.addon.tasker.settings.SettingsActivity;
@@ -109,6 +111,8 @@ public class MainActivity extends ProjectActivity {
         Class<?>[] editClasses = {
                 UpdateContainerEdit.class,
                 LocusInfoEdit.class,
+                MultiSourceEdit.class,
+                DiagnosticsEdit.class,
                 ActionTaskEdit.class,
                 LocusGeoTagActivity.class,
                 GeotagPhotosService.class,
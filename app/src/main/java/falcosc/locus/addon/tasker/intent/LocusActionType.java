@@ -10,7 +10,9 @@ public enum LocusActionType {
     UPDATE_CONTAINER_REQUEST(UpdateContainerRequest::new),
     LOCUS_INFO_REQUEST(LocusInfoRequest::new),
     SELECT_VERSION(SelectVersionRequest::new),
-    ACTION_TASK(ActionTask::new);
+    ACTION_TASK(ActionTask::new),
+    MULTI_SOURCE_REQUEST(MultiSourceRequest::new),
+    DIAGNOSTICS(DiagnosticsRequest::new);
 
     LocusActionType(@NonNull Callable<TaskerAction> handler) {
         mHandler = handler;
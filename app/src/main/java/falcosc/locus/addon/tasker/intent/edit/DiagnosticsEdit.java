@@ -0,0 +1,83 @@
+package falcosc.locus.addon.tasker.intent.edit;
+
+import android.os.Bundle;
+import android.util.SparseBooleanArray;
+import android.widget.AbsListView;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.R;
+import falcosc.locus.addon.tasker.intent.LocusActionType;
+import falcosc.locus.addon.tasker.utils.Const;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
+import falcosc.locus.addon.tasker.utils.TaskerField;
+
+/**
+ * Stage selection of the diagnostics action, each stage returns count and percentile variables
+ */
+public class DiagnosticsEdit extends TaskerEditActivity {
+
+    private List<TaskerField> mStages;
+    private SparseBooleanArray mCheckState;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        Set<String> storedStageSelection = new HashSet<>();
+
+        if (savedInstanceState == null) {
+
+            Bundle taskerBundle = getIntent().getBundleExtra(com.twofortyfouram.locale.api.Intent.EXTRA_BUNDLE);
+            if (taskerBundle != null) {
+                String[] savedSelectedFieldsArray = taskerBundle.getStringArray(Const.INTENT_EXTRA_FIELD_LIST);
+                if (savedSelectedFieldsArray != null) {
+                    storedStageSelection.addAll(Arrays.asList(savedSelectedFieldsArray));
+                }
+            }
+        }
+
+        mStages = Diagnostics.getStageFields();
+
+        ArrayAdapter<String> arrayAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice);
+
+        setContentView(R.layout.edit_list_view);
+
+        ListView listView = findViewById(R.id.listView);
+
+        listView.setAdapter(arrayAdapter);
+        listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+
+        mCheckState = listView.getCheckedItemPositions();
+
+        for (int i = 0; i < mStages.size(); i++) {
+            TaskerField stage = mStages.get(i);
+            arrayAdapter.add(stage.mLabel);
+            mCheckState.put(i, storedStageSelection.contains(stage.mTaskerName));
+        }
+    }
+
+    @Override
+    void onApply() {
+        ArrayList<TaskerField> selectedStages = new ArrayList<>();
+        List<String> varDesc = new ArrayList<>();
+
+        int checkedItemsCount = mCheckState.size();
+        for (int i = 0; i < checkedItemsCount; ++i) {
+            if (mCheckState.valueAt(i)) {
+                TaskerField stage = mStages.get(mCheckState.keyAt(i));
+                selectedStages.add(stage);
+                varDesc.addAll(Arrays.asList(Diagnostics.getVarDesc(stage.mTaskerName)));
+            }
+        }
+        finish(createResultIntent(LocusActionType.DIAGNOSTICS, selectedStages, new Bundle(),
+                varDesc.toArray(new String[0]), false), null);
+    }
+}
@@ -0,0 +1,81 @@
+package falcosc.locus.addon.tasker.intent.edit;
+
+import android.os.Bundle;
+import android.util.SparseBooleanArray;
+import android.widget.AbsListView;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.R;
+import falcosc.locus.addon.tasker.intent.LocusActionType;
+import falcosc.locus.addon.tasker.intent.handler.LocusInfoRequest;
+import falcosc.locus.addon.tasker.utils.Const;
+import falcosc.locus.addon.tasker.utils.LocusCache;
+import falcosc.locus.addon.tasker.utils.TaskerField;
+
+/**
+ * Field selection of update container, navigation progress and Locus info fields for one action
+ */
+public class MultiSourceEdit extends TaskerEditActivity {
+
+    private List<TaskerField> mFields;
+    private SparseBooleanArray mCheckState;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        Set<String> storedFieldSelection = new HashSet<>();
+
+        if (savedInstanceState == null) {
+
+            Bundle taskerBundle = getIntent().getBundleExtra(com.twofortyfouram.locale.api.Intent.EXTRA_BUNDLE);
+            if (taskerBundle != null) {
+                String[] savedSelectedFieldsArray = taskerBundle.getStringArray(Const.INTENT_EXTRA_FIELD_LIST);
+                if (savedSelectedFieldsArray != null) {
+                    storedFieldSelection.addAll(Arrays.asList(savedSelectedFieldsArray));
+                }
+            }
+        }
+
+        mFields = new ArrayList<>(LocusCache.getInstance(getApplication()).getFieldRegistry().mUpdateContainerFields);
+        mFields.addAll(LocusInfoRequest.getFieldNames());
+
+        ArrayAdapter<String> arrayAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice);
+
+        setContentView(R.layout.edit_list_view);
+
+        ListView listView = findViewById(R.id.listView);
+
+        listView.setAdapter(arrayAdapter);
+        listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+
+        mCheckState = listView.getCheckedItemPositions();
+
+        for (int i = 0; i < mFields.size(); i++) {
+            TaskerField field = mFields.get(i);
+            arrayAdapter.add(field.mLabel);
+            mCheckState.put(i, storedFieldSelection.contains(field.mTaskerName));
+        }
+    }
+
+    @Override
+    void onApply() {
+        ArrayList<TaskerField> selectedFields = new ArrayList<>();
+
+        int checkedItemsCount = mCheckState.size();
+        for (int i = 0; i < checkedItemsCount; ++i) {
+            if (mCheckState.valueAt(i)) {
+                selectedFields.add(mFields.get(mCheckState.keyAt(i)));
+            }
+        }
+        finish(createResultIntent(LocusActionType.MULTI_SOURCE_REQUEST, selectedFields), null);
+    }
+}
@@ -90,7 +90,7 @@ public class SelectVersion extends TaskerEditActivity {
         resultIntent.putExtra(com.twofortyfouram.locale.api.Intent.EXTRA_BUNDLE, extraBundle);
         resultIntent.putExtra(com.twofortyfouram.locale.api.Intent.EXTRA_STRING_BLURB, packageName);
 
-        LocusCache.getInstance(getApplication()).versionSelectReminder.setVersionSelectLastUsage();
+        LocusCache.getInstance(getApplication()).getVersionSelectReminder().setVersionSelectLastUsage();
 
         if (!TaskerPlugin.Setting.hostSupportsSynchronousExecution(getIntent().getExtras())) {
             Toast.makeText(this, R.string.err_no_support_sync_exec, Toast.LENGTH_LONG).show();
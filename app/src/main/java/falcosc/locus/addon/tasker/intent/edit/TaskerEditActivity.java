@@ -116,6 +116,17 @@ public abstract class TaskerEditActivity extends AppCompatActivity {
 
     @Nullable
     Intent createResultIntent(LocusActionType actionType, ArrayList<TaskerField> locusFields) {
+        return createResultIntent(actionType, locusFields, new Bundle(), new String[0], true);
+    }
+
+    /**
+     * @param options additional extras which get passed to the action handler
+     * @param additionalVarDesc descriptions of returned variables which are not part of the field list
+     * @param fieldVariables false if the fields are not returned as variables of their own
+     */
+    @Nullable
+    Intent createResultIntent(LocusActionType actionType, ArrayList<TaskerField> locusFields,
+                              @NonNull Bundle options, @NonNull String[] additionalVarDesc, boolean fieldVariables) {
 
         Bundle hostExtras = getIntent().getExtras();
 
@@ -129,16 +140,20 @@ public abstract class TaskerEditActivity extends AppCompatActivity {
             return null;
         }
 
+        int fieldDescCount = fieldVariables ? locusFields.size() : 0;
         String[] fieldKeys = new String[locusFields.size()];
-        String[] fieldDesc = new String[locusFields.size()];
+        String[] fieldDesc = new String[fieldDescCount + additionalVarDesc.length];
         for (int i = 0; i < locusFields.size(); i++) {
             TaskerField field = locusFields.get(i);
-            fieldDesc[i] = "%" + field.mTaskerName + "\n" + field.mLabel + "\n";
+            if (fieldVariables) {
+                fieldDesc[i] = "%" + field.mTaskerName + "\n" + field.mLabel + "\n";
+            }
             fieldKeys[i] = field.mTaskerName;
         }
+        System.arraycopy(additionalVarDesc, 0, fieldDesc, fieldDescCount, additionalVarDesc.length);
         Arrays.sort(fieldKeys);
 
-        Bundle extraBundle = new Bundle();
+        Bundle extraBundle = new Bundle(options);
         extraBundle.putString(Const.INTEND_EXTRA_ADDON_ACTION_TYPE, actionType.name());
         extraBundle.putStringArray(Const.INTENT_EXTRA_FIELD_LIST, fieldKeys);
         String blurb = StringUtils.join(fieldKeys, ",\n");
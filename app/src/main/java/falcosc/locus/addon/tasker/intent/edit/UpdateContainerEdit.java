@@ -15,18 +15,21 @@ import android.view.ViewGroup;
 import android.view.WindowManager;
 import android.widget.AbsListView;
 import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
 import android.widget.CheckedTextView;
+import android.widget.EditText;
 import android.widget.ListView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.twofortyfouram.locale.api.Intent;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
@@ -34,6 +37,10 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog.Builder;
 import falcosc.locus.addon.tasker.R;
 import falcosc.locus.addon.tasker.intent.LocusActionType;
+import falcosc.locus.addon.tasker.uc.ExpressionField;
+import falcosc.locus.addon.tasker.uc.UpdateContainerFieldPlan;
+import falcosc.locus.addon.tasker.uc.UpdateContainerFieldRegistry;
+import falcosc.locus.addon.tasker.uc.UpdateContainerHelpTexts;
 import falcosc.locus.addon.tasker.utils.Const;
 import falcosc.locus.addon.tasker.utils.LocusCache;
 import falcosc.locus.addon.tasker.utils.TaskerField;
@@ -42,6 +49,10 @@ public class UpdateContainerEdit extends TaskerEditActivity {
 
     private Set<String> mStoredFieldSelection;
     private ArrayAdapter<TaskerFieldSelection> mArrayAdapter;
+    private CheckBox mChangedOnly;
+    private CheckBox mJsonOutput;
+    private EditText mDeadbands;
+    private EditText mExpressions;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -50,10 +61,11 @@ public class UpdateContainerEdit extends TaskerEditActivity {
         LocusCache locusCache = LocusCache.getInstance(getApplication());
 
         mStoredFieldSelection = new HashSet<>();
+        Bundle taskerBundle = null;
 
         if (savedInstanceState == null) {
 
-            Bundle taskerBundle = getIntent().getBundleExtra(Intent.EXTRA_BUNDLE);
+            taskerBundle = getIntent().getBundleExtra(Intent.EXTRA_BUNDLE);
             if (taskerBundle != null) {
                 String[] savedSelectedFieldsArray = taskerBundle.getStringArray(Const.INTENT_EXTRA_FIELD_LIST);
                 if (savedSelectedFieldsArray != null) {
@@ -62,7 +74,7 @@ public class UpdateContainerEdit extends TaskerEditActivity {
             }
         }
 
-        ArrayList<TaskerField> updateContainerFields = locusCache.mUpdateContainerFields;
+        List<TaskerField> updateContainerFields = locusCache.getFieldRegistry().mUpdateContainerFields;
 
         //ArrayAdapter<String> arrayAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice);
         mArrayAdapter = new UpdateContainerArrayAdapter(this);
@@ -80,6 +92,19 @@ public class UpdateContainerEdit extends TaskerEditActivity {
 
         ListView listView = findViewById(R.id.listView);
 
+        View options = getLayoutInflater().inflate(R.layout.update_container_options, listView, false);
+        mChangedOnly = options.findViewById(R.id.changed_only);
+        mJsonOutput = options.findViewById(R.id.json_output);
+        mDeadbands = options.findViewById(R.id.deadbands);
+        mExpressions = options.findViewById(R.id.expressions);
+        if (taskerBundle != null) {
+            mChangedOnly.setChecked(taskerBundle.getBoolean(Const.INTENT_EXTRA_CHANGED_ONLY, false));
+            mJsonOutput.setChecked(taskerBundle.getBoolean(Const.INTENT_EXTRA_JSON_OUTPUT, false));
+            mDeadbands.setText(taskerBundle.getString(Const.INTENT_EXTRA_DEADBANDS));
+            mExpressions.setText(taskerBundle.getString(Const.INTENT_EXTRA_EXPRESSIONS));
+        }
+        listView.addHeaderView(options, null, false);
+
         listView.setAdapter(mArrayAdapter);
         listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
 
@@ -89,9 +114,9 @@ public class UpdateContainerEdit extends TaskerEditActivity {
     }
 
     private boolean isCalcNavigationProgressNew(@NonNull Set<String> previousFieldSelection) {
-        LocusCache locusCache = LocusCache.getInstance(getApplication());
-        boolean isPrevWithoutNavigation = Collections.disjoint(previousFieldSelection, locusCache.mLocationProgressKeys);
-        boolean isNewNavigation = !Collections.disjoint(mStoredFieldSelection, locusCache.mLocationProgressKeys);
+        UpdateContainerFieldRegistry registry = LocusCache.getInstance(getApplication()).getFieldRegistry();
+        boolean isPrevWithoutNavigation = Collections.disjoint(previousFieldSelection, registry.mLocationProgressKeys);
+        boolean isNewNavigation = !Collections.disjoint(mStoredFieldSelection, registry.mLocationProgressKeys);
 
         return isPrevWithoutNavigation && isNewNavigation;
     }
@@ -109,8 +134,64 @@ public class UpdateContainerEdit extends TaskerEditActivity {
         return hintsDialog;
     }
 
+    @Nullable
+    private Bundle createOptions() {
+        Bundle options = new Bundle();
+        String deadbands = mDeadbands.getText().toString().trim();
+        try {
+            UpdateContainerFieldPlan.parseDeadbands(deadbands);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, R.string.err_invalid_deadbands, Toast.LENGTH_LONG).show();
+            return null;
+        }
+
+        if (mChangedOnly.isChecked()) {
+            options.putBoolean(Const.INTENT_EXTRA_CHANGED_ONLY, true);
+            if (!deadbands.isEmpty()) {
+                options.putString(Const.INTENT_EXTRA_DEADBANDS, deadbands);
+            }
+        }
+
+        if (mJsonOutput.isChecked()) {
+            options.putBoolean(Const.INTENT_EXTRA_JSON_OUTPUT, true);
+        }
+
+        String expressions = mExpressions.getText().toString().trim();
+        if (!expressions.isEmpty()) {
+            options.putString(Const.INTENT_EXTRA_EXPRESSIONS, expressions);
+        }
+        return options;
+    }
+
+    /**
+     * @return descriptions of the calculated fields or null if an expression is invalid
+     */
+    @Nullable
+    private List<String> createExpressionVarDesc(@Nullable String expressions) {
+        UpdateContainerFieldRegistry registry = LocusCache.getInstance(getApplication()).getFieldRegistry();
+        List<String> varDesc = new ArrayList<>();
+        try {
+            for (ExpressionField field : ExpressionField.parse(expressions, registry.mExtUpdateContainerFieldMap,
+                    registry.mTrackRecordingKeys, registry.mTrackGuideKeys)) {
+                varDesc.add("%" + field.mTaskerName + "\n" + field.mExpression + "\n");
+            }
+        } catch (IllegalArgumentException e) {
+            Toast.makeText(this, getString(R.string.err_invalid_expression, e.getMessage()), Toast.LENGTH_LONG).show();
+            return null;
+        }
+        return varDesc;
+    }
+
     @Override
     void onApply() {
+        Bundle options = createOptions();
+        List<String> additionalVarDesc = (options == null) ? null
+                : createExpressionVarDesc(options.getString(Const.INTENT_EXTRA_EXPRESSIONS));
+        if (additionalVarDesc == null) {
+            //let the user fix the options
+            return;
+        }
+
         Set<String> previousFieldSelection = mStoredFieldSelection;
         mStoredFieldSelection = new LinkedHashSet<>();
 
@@ -124,7 +205,17 @@ public class UpdateContainerEdit extends TaskerEditActivity {
                 mStoredFieldSelection.add(field.mTaskerName);
             }
         }
-        finish(createResultIntent(LocusActionType.UPDATE_CONTAINER_REQUEST, selectedFields), createHintsDialog(previousFieldSelection));
+        boolean jsonOutput = options.getBoolean(Const.INTENT_EXTRA_JSON_OUTPUT);
+        if (jsonOutput) {
+            //calculated fields are part of the JSON object too
+            additionalVarDesc.clear();
+            additionalVarDesc.add("%" + UpdateContainerFieldPlan.JSON_VAR + "\n" + getString(R.string.uc_json_label) + "\n");
+        }
+        if (options.getBoolean(Const.INTENT_EXTRA_CHANGED_ONLY)) {
+            additionalVarDesc.add("%" + UpdateContainerFieldPlan.CHANGED_FIELDS_VAR + "\n" + getString(R.string.uc_changed_label) + "\n");
+        }
+        finish(createResultIntent(LocusActionType.UPDATE_CONTAINER_REQUEST, selectedFields, options,
+                additionalVarDesc.toArray(new String[0]), !jsonOutput), createHintsDialog(previousFieldSelection));
     }
 
     public static class TaskerFieldSelection extends TaskerField {
@@ -147,10 +238,9 @@ public class UpdateContainerEdit extends TaskerEditActivity {
             mHelpText = new SpannableStringBuilder();
             mHelpText.append("%" + mTaskerName + " ", new StyleSpan(Typeface.BOLD), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
 
-            try {
-                Field idField = R.string.class.getDeclaredField("uc_" + mTaskerName); //NON-NLS
-                mHelpText.append(context.getResources().getText(idField.getInt(idField)));
-            } catch (Exception ignored) {
+            int helpTextId = UpdateContainerHelpTexts.getHelpTextId(mTaskerName);
+            if (helpTextId != 0) {
+                mHelpText.append(context.getResources().getText(helpTextId));
             }
             return mHelpText;
         }
@@ -0,0 +1,132 @@
+package falcosc.locus.addon.tasker.intent.edit;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.Spinner;
+import android.widget.Toast;
+
+import java.util.ArrayList;
+
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.R;
+import falcosc.locus.addon.tasker.intent.receiver.UpdateContainerEventQueryReceiver;
+import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
+import falcosc.locus.addon.tasker.uc.UpdateContainerCondition;
+import falcosc.locus.addon.tasker.utils.LocusCache;
+import falcosc.locus.addon.tasker.utils.TaskerField;
+
+public class UpdateContainerEventEdit extends TaskerEditActivity {
+
+    private static final String TAG = "UpdateContainerEventEdit"; //NON-NLS
+
+    private Spinner mFieldSelection;
+    private Spinner mOperatorSelection;
+    private EditText mThreshold;
+    private ArrayAdapter<SelectVersion.Option> mFieldArrayAdapter;
+    @Nullable
+    private UpdateContainerCondition mPreviousCondition;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        setContentView(R.layout.edit_update_container_event);
+
+        ArrayList<SelectVersion.Option> fields = new ArrayList<>();
+        for (TaskerField field : LocusCache.getInstance(getApplication()).getFieldRegistry().mUpdateContainerFields) {
+            fields.add(new SelectVersion.Option(field.mTaskerName, field.mLabel));
+        }
+
+        mFieldArrayAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, fields);
+        mFieldArrayAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        mFieldSelection = findViewById(R.id.field_select);
+        mFieldSelection.setAdapter(mFieldArrayAdapter);
+
+        ArrayAdapter<UpdateContainerCondition.Operator> operatorArrayAdapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_spinner_item, UpdateContainerCondition.Operator.values());
+        operatorArrayAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        mOperatorSelection = findViewById(R.id.operator_select);
+        mOperatorSelection.setAdapter(operatorArrayAdapter);
+
+        mThreshold = findViewById(R.id.threshold);
+
+        UpdateContainerCondition condition = UpdateContainerCondition.fromBundle(
+                getIntent().getBundleExtra(com.twofortyfouram.locale.api.Intent.EXTRA_BUNDLE));
+        mPreviousCondition = condition;
+        if (condition != null) {
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).key.equals(condition.mField)) {
+                    mFieldSelection.setSelection(i);
+                }
+            }
+            mOperatorSelection.setSelection(condition.mOperator.ordinal());
+            mThreshold.setText(String.valueOf(condition.mThreshold));
+        }
+    }
+
+    @Nullable
+    private UpdateContainerCondition createCondition() {
+        if (mFieldArrayAdapter.isEmpty()) {
+            Toast.makeText(this, R.string.err_field_selection_missing, Toast.LENGTH_LONG).show();
+            return null;
+        }
+
+        double threshold;
+        try {
+            threshold = Double.parseDouble(mThreshold.getText().toString().trim());
+        } catch (NumberFormatException e) {
+            mThreshold.setError(getString(R.string.err_invalid_number));
+            return null;
+        }
+
+        String field = mFieldArrayAdapter.getItem(mFieldSelection.getSelectedItemPosition()).key;
+        return new UpdateContainerCondition(field,
+                (UpdateContainerCondition.Operator) mOperatorSelection.getSelectedItem(), threshold);
+    }
+
+    @Nullable
+    private Intent createResultIntent(UpdateContainerCondition condition) {
+        Bundle hostExtras = getIntent().getExtras();
+
+        if (!TaskerPlugin.Event.hostSupportsRequestQueryDataPassThrough(hostExtras)) {
+            Toast.makeText(this, R.string.err_no_support_event_pass_through, Toast.LENGTH_LONG).show();
+            return null;
+        }
+
+        Bundle extraBundle = new Bundle();
+        condition.writeTo(extraBundle);
+
+        Intent resultIntent = new Intent();
+        resultIntent.putExtra(com.twofortyfouram.locale.api.Intent.EXTRA_BUNDLE, extraBundle);
+        resultIntent.putExtra(com.twofortyfouram.locale.api.Intent.EXTRA_STRING_BLURB, condition.toString());
+
+        if (TaskerPlugin.hostSupportsRelevantVariables(hostExtras)) {
+            TaskerPlugin.addRelevantVariableList(resultIntent, new String[]{
+                    UpdateContainerEventQueryReceiver.VAR_FIELD + "\n" + getString(R.string.uc_event_field_label) + "\n",
+                    UpdateContainerEventQueryReceiver.VAR_VALUE + "\n" + getString(R.string.uc_event_value_label) + "\n"
+            });
+        }
+
+        try {
+            LocusCache.getInstance(getApplication()).replaceEventCondition(mPreviousCondition, condition);
+        } catch (Exception e) {
+            //condition is stored anyway, only fails if Locus is missing which can't send updates anyway
+            Log.w(TAG, "Can't subscribe periodic updates", e); //NON-NLS
+        }
+
+        return resultIntent;
+    }
+
+    @Override
+    void onApply() {
+        UpdateContainerCondition condition = createCondition();
+        if (condition == null) {
+            //let the user fix the condition
+            return;
+        }
+        finish(createResultIntent(condition), null);
+    }
+}
@@ -14,6 +14,7 @@ import falcosc.locus.addon.tasker.R;
 import falcosc.locus.addon.tasker.RequiredDataMissingException;
 import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
 import falcosc.locus.addon.tasker.utils.Const;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
 import falcosc.locus.addon.tasker.utils.LocusCache;
 import falcosc.locus.addon.tasker.utils.ReportingHelper;
 import locus.api.android.utils.exceptions.RequiredVersionMissingException;
@@ -26,32 +27,40 @@ abstract class AbstractTaskerAction implements TaskerAction {
 
     Context mContext;
     private Intent mIntent;
-    BroadcastReceiver mReceiver;
+    BroadcastReceiver.PendingResult mResult;
+    boolean mOrderedBroadcast;
 
     @Override
-    public void setContext(@NonNull Context context, @NonNull BroadcastReceiver receiver) {
+    public void setContext(@NonNull Context context, @NonNull BroadcastReceiver.PendingResult result, boolean orderedBroadcast) {
         mContext = context;
-        mReceiver = receiver;
+        mResult = result;
+        mOrderedBroadcast = orderedBroadcast;
     }
 
     @Override
     public void handle(@NonNull Intent intent, @NonNull Bundle apiExtraBundle) {
         mIntent = intent;
+        long startTime = Diagnostics.start();
 
         try {
             doHandle(apiExtraBundle);
             LocusCache lc = LocusCache.getInstanceUnsafe(mContext);
-            lc.versionSelectReminder.remindIfWrongVersionSelected(lc.mLocusVersion);
+            lc.getVersionSelectReminder().remindIfWrongVersionSelected(lc.mLocusVersion);
         } catch (LocusCache.MissingAppContextException | RequiredVersionMissingException | RequiredDataMissingException e) {
-            if (mReceiver.isOrderedBroadcast()) {
+            if (mOrderedBroadcast) {
                 Bundle varsBundle = new Bundle();
                 varsBundle.putString(TaskerPlugin.Setting.VARNAME_ERROR_MESSAGE, ReportingHelper.getUserFriendlyName(e));
-                TaskerPlugin.addVariableBundle(mReceiver.getResultExtras(true), varsBundle);
-                mReceiver.setResultCode(TaskerPlugin.Setting.RESULT_CODE_FAILED);
+                TaskerPlugin.addVariableBundle(mResult.getResultExtras(true), varsBundle);
+                mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_FAILED);
             } else {
                 //can't return anything, write it to log
                 new ReportingHelper(mContext).sendErrorNotification(TAG, "Can't handle not ordered broadcast", e); //NON-NLS
             }
+        } finally {
+            String actionType = apiExtraBundle.getString(Const.INTEND_EXTRA_ADDON_ACTION_TYPE);
+            if (actionType != null) {
+                Diagnostics.record(Diagnostics.actionStage(actionType), startTime);
+            }
         }
     }
 
@@ -60,13 +69,13 @@ abstract class AbstractTaskerAction implements TaskerAction {
             throw new RequiredDataMissingException(getString(R.string.err_no_support_return_variables));
         }
 
-        if (!mReceiver.isOrderedBroadcast()) {
+        if (!mOrderedBroadcast) {
             throw new RequiredDataMissingException(getString(R.string.err_not_set_sync_exec));
         }
     }
 
     @NonNull
-    Set<String> requireSelectedFields(@NonNull Bundle apiExtraBundle) throws RequiredDataMissingException {
+    String[] requireSelectedFieldList(@NonNull Bundle apiExtraBundle) throws RequiredDataMissingException {
 
         String[] selectedFieldsArray = apiExtraBundle.getStringArray(Const.INTENT_EXTRA_FIELD_LIST);
 
@@ -74,7 +83,12 @@ abstract class AbstractTaskerAction implements TaskerAction {
             throw new RequiredDataMissingException(getString(R.string.err_field_selection_missing));
         }
 
-        return new HashSet<>(Arrays.asList(selectedFieldsArray));
+        return selectedFieldsArray;
+    }
+
+    @NonNull
+    Set<String> requireSelectedFields(@NonNull Bundle apiExtraBundle) throws RequiredDataMissingException {
+        return new HashSet<>(Arrays.asList(requireSelectedFieldList(apiExtraBundle)));
     }
 
     private String getString(int field) {
@@ -26,8 +26,8 @@ public class ActionTask extends AbstractTaskerAction {
         }
         mContext.sendBroadcast(intent);
 
-        if (mReceiver.isOrderedBroadcast()) {
-            mReceiver.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
+        if (mOrderedBroadcast) {
+            mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
         }
 
     }
@@ -0,0 +1,30 @@
+package falcosc.locus.addon.tasker.intent.handler;
+
+import android.os.Bundle;
+
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import falcosc.locus.addon.tasker.RequiredDataMissingException;
+import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
+
+/**
+ * Returns latency percentiles of the selected plugin stages, doesn't need Locus
+ */
+public class DiagnosticsRequest extends AbstractTaskerAction {
+
+    @Override
+    protected void doHandle(@NonNull Bundle apiExtraBundle) throws RequiredDataMissingException {
+
+        requireSupportingVariables();
+
+        Set<String> selectedStages = requireSelectedFields(apiExtraBundle);
+
+        Bundle varsBundle = new Bundle();
+        Diagnostics.addVariables(selectedStages, varsBundle);
+
+        TaskerPlugin.addVariableBundle(mResult.getResultExtras(true), varsBundle);
+        mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
+    }
+}
@@ -42,6 +42,23 @@ public class LocusInfoRequest extends AbstractTaskerAction {
         return fields;
     }
 
+    static boolean isField(@NonNull String taskerName) {
+        for (LocusInfoField locusInfoField : FIELDS) {
+            if (locusInfoField.mTaskerName.equals(taskerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void addVariables(@NonNull LocusInfo info, @NonNull Set<String> selectedFields, @NonNull Bundle varsBundle) {
+        for (LocusInfoField locusInfoField : FIELDS) {
+            if (selectedFields.contains(locusInfoField.mTaskerName)) {
+                varsBundle.putString("%" + locusInfoField.mTaskerName, String.valueOf(locusInfoField.apply(info)));
+            }
+        }
+    }
+
     @Override
     protected void doHandle(@NonNull Bundle apiExtraBundle) throws LocusCache.MissingAppContextException, RequiredDataMissingException {
 
@@ -55,14 +72,9 @@ public class LocusInfoRequest extends AbstractTaskerAction {
         LocusInfo info = ActionBasics.INSTANCE.getLocusInfo(locusCache.getApplicationContext(), locusCache.requireLocusVersion());
 
         Bundle varsBundle = new Bundle();
+        addVariables(info, selectedFields, varsBundle);
 
-        for (LocusInfoField locusInfoField : FIELDS) {
-            if (selectedFields.contains(locusInfoField.mTaskerName)) {
-                varsBundle.putString("%" + locusInfoField.mTaskerName, String.valueOf(locusInfoField.apply(info)));
-            }
-        }
-
-        TaskerPlugin.addVariableBundle(mReceiver.getResultExtras(true), varsBundle);
-        mReceiver.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
+        TaskerPlugin.addVariableBundle(mResult.getResultExtras(true), varsBundle);
+        mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
     }
 }
@@ -0,0 +1,99 @@
+package falcosc.locus.addon.tasker.intent.handler;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import androidx.annotation.NonNull;
+import falcosc.locus.addon.tasker.RequiredDataMissingException;
+import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
+import falcosc.locus.addon.tasker.uc.ExtUpdateContainer;
+import falcosc.locus.addon.tasker.uc.UpdateContainerFieldPlan;
+import falcosc.locus.addon.tasker.utils.LocusCache;
+import falcosc.locus.addon.tasker.utils.PluginExecutors;
+import locus.api.android.ActionBasics;
+import locus.api.android.objects.LocusInfo;
+import locus.api.android.objects.LocusVersion;
+import locus.api.android.utils.exceptions.RequiredVersionMissingException;
+
+/**
+ * Update container fields, navigation progress and Locus info in one action.
+ * Each source is requested at most once and the Locus info request runs in parallel to the update container request.
+ */
+public class MultiSourceRequest extends AbstractTaskerAction {
+
+    private static final String TAG = "MultiSourceRequest"; //NON-NLS
+    //below the request timeout of the action, the update container request runs at the same time
+    private static final long LOCUS_INFO_TIMEOUT = 5000L;
+
+    @Override
+    protected void doHandle(@NonNull Bundle apiExtraBundle) throws RequiredVersionMissingException, LocusCache.MissingAppContextException, RequiredDataMissingException {
+        requireSupportingVariables();
+
+        String[] selectedFields = requireSelectedFieldList(apiExtraBundle);
+        Set<String> locusInfoFields = new HashSet<>();
+        List<String> updateContainerFields = new ArrayList<>(selectedFields.length);
+        for (String field : selectedFields) {
+            if (LocusInfoRequest.isField(field)) {
+                locusInfoFields.add(field);
+            } else {
+                updateContainerFields.add(field);
+            }
+        }
+
+        LocusCache locusCache = LocusCache.getInstanceUnsafe(mContext);
+        LocusVersion locusVersion = locusCache.requireLocusVersion();
+
+        //background executor because the worker pool of this action is bounded
+        Future<LocusInfo> locusInfo = locusInfoFields.isEmpty() ? null : PluginExecutors.getBackgroundExecutor().submit(
+                () -> ActionBasics.INSTANCE.getLocusInfo(locusCache.getApplicationContext(), locusVersion));
+
+        Bundle varsBundle = new Bundle();
+        try {
+            if (!updateContainerFields.isEmpty()) {
+                //navigation progress fields are part of the plan and share the update container
+                UpdateContainerFieldPlan fieldPlan = locusCache.getFieldPlan(
+                        updateContainerFields.toArray(new String[0]), apiExtraBundle);
+                ExtUpdateContainer extUpdate = locusCache.getUpdateContainer();
+                fieldPlan.addVariables(extUpdate, varsBundle);
+            }
+
+            if (locusInfo != null) {
+                LocusInfoRequest.addVariables(awaitLocusInfo(locusInfo), locusInfoFields, varsBundle);
+            }
+        } finally {
+            if (locusInfo != null) {
+                locusInfo.cancel(true);
+            }
+        }
+
+        TaskerPlugin.addVariableBundle(mResult.getResultExtras(true), varsBundle);
+        mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
+    }
+
+    @NonNull
+    private static LocusInfo awaitLocusInfo(@NonNull Future<LocusInfo> locusInfo) throws RequiredDataMissingException {
+        LocusInfo info;
+        try {
+            info = locusInfo.get(LOCUS_INFO_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Can't get Locus info", e); //NON-NLS
+            info = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequiredDataMissingException("Interrupted while waiting for Locus info", e); //NON-NLS
+        }
+        if (info == null) {
+            throw new RequiredDataMissingException("Locus info is not available"); //NON-NLS
+        }
+        return info;
+    }
+}
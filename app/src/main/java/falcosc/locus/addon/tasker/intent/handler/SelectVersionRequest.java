@@ -6,8 +6,7 @@ import androidx.annotation.NonNull;
 import falcosc.locus.addon.tasker.RequiredDataMissingException;
 import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
 import falcosc.locus.addon.tasker.utils.LocusCache;
-import locus.api.android.ActionBasics;
-import locus.api.android.objects.LocusInfo;
+import falcosc.locus.addon.tasker.utils.LocusInfoCache;
 import locus.api.android.objects.LocusVersion;
 import locus.api.android.utils.LocusConst;
 import locus.api.android.utils.LocusUtils;
@@ -25,15 +24,9 @@ public class SelectVersionRequest extends AbstractTaskerAction {
 
         LocusVersion lv = null;
         if (LAST_ACTIVE.equals(packageName)) {
-            LocusInfo activeLocusInfo = new LocusInfo();
-            for (LocusVersion availableVersion : LocusUtils.INSTANCE.getAvailableVersions(mContext)) {
-                LocusInfo info = ActionBasics.INSTANCE.getLocusInfo(mContext, availableVersion);
-                if (info != null) {
-                    if (info.getLastActive() > activeLocusInfo.getLastActive()) {
-                        activeLocusInfo = info;
-                        lv = availableVersion;
-                    }
-                }
+            LocusInfoCache.VersionInfo lastActive = locusCache.getLocusInfoCache().getLastActive(false);
+            if ((lastActive != null) && (lastActive.mInfo.getLastActive() > 0L)) {
+                lv = lastActive.mVersion;
             }
         } else {
             lv = LocusUtils.INSTANCE.createLocusVersion(mContext, packageName);
@@ -43,6 +36,6 @@ public class SelectVersionRequest extends AbstractTaskerAction {
         }
         locusCache.mLocusVersion = lv;
 
-        mReceiver.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
+        mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
     }
 }
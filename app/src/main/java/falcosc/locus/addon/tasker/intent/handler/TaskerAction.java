@@ -8,7 +8,11 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 
 public interface TaskerAction {
-    void setContext(@NonNull Context context, @NonNull BroadcastReceiver receiver);
+    /**
+     * @param result           result of the broadcast which got moved to a worker thread by goAsync
+     * @param orderedBroadcast only ordered broadcasts can return a result to Tasker
+     */
+    void setContext(@NonNull Context context, @NonNull BroadcastReceiver.PendingResult result, boolean orderedBroadcast);
 
     void handle(@NonNull Intent intent, @NonNull Bundle apiExtraBundle);
 }
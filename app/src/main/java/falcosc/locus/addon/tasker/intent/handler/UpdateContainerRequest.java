@@ -2,15 +2,15 @@ package falcosc.locus.addon.tasker.intent.handler;
 
 import android.os.Bundle;
 
-import java.util.Set;
+import org.apache.commons.lang3.ArrayUtils;
 
 import androidx.annotation.NonNull;
 import falcosc.locus.addon.tasker.RequiredDataMissingException;
 import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
 import falcosc.locus.addon.tasker.uc.ExtUpdateContainer;
-import falcosc.locus.addon.tasker.uc.ExtUpdateContainerGetter;
+import falcosc.locus.addon.tasker.uc.UpdateContainerFieldPlan;
+import falcosc.locus.addon.tasker.utils.Const;
 import falcosc.locus.addon.tasker.utils.LocusCache;
-import locus.api.android.features.periodicUpdates.UpdateContainer;
 import locus.api.android.utils.exceptions.RequiredVersionMissingException;
 
 public class UpdateContainerRequest extends AbstractTaskerAction {
@@ -19,33 +19,19 @@ public class UpdateContainerRequest extends AbstractTaskerAction {
     protected void doHandle(@NonNull Bundle apiExtraBundle) throws RequiredVersionMissingException, LocusCache.MissingAppContextException, RequiredDataMissingException {
         requireSupportingVariables();
 
-        Set<String> selectedFields = requireSelectedFields(apiExtraBundle);
+        String[] selectedFields = apiExtraBundle.containsKey(Const.INTENT_EXTRA_EXPRESSIONS)
+                ? ArrayUtils.nullToEmpty(apiExtraBundle.getStringArray(Const.INTENT_EXTRA_FIELD_LIST))
+                : requireSelectedFieldList(apiExtraBundle);
 
         LocusCache locusCache = LocusCache.getInstanceUnsafe(mContext);
+        UpdateContainerFieldPlan fieldPlan = locusCache.getFieldPlan(selectedFields, apiExtraBundle);
 
         ExtUpdateContainer extUpdate = locusCache.getUpdateContainer();
-        UpdateContainer update = extUpdate.mUpdateContainer;
-
-        if (!update.isTrackRecRecording()) {
-            //remove track recording fields to skip null checks
-            selectedFields.removeAll(locusCache.mTrackRecordingKeys);
-        }
-
-        if (!update.isGuideEnabled()) {
-            //remove guide fields to skip null checks
-            selectedFields.removeAll(locusCache.mTrackGuideKeys);
-        }
 
         Bundle varsBundle = new Bundle();
+        fieldPlan.addVariables(extUpdate, varsBundle);
 
-        for (String field : selectedFields) {
-            //Don't need to check updateContainerMethodMap, illegal intents creates exceptions
-            ExtUpdateContainerGetter lf = locusCache.mExtUpdateContainerFieldMap.get(field);
-            if (lf != null) {
-                varsBundle.putString("%" + field, String.valueOf(lf.apply(extUpdate)));
-            }
-            TaskerPlugin.addVariableBundle(mReceiver.getResultExtras(true), varsBundle);
-        }
-        mReceiver.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
+        TaskerPlugin.addVariableBundle(mResult.getResultExtras(true), varsBundle);
+        mResult.setResultCode(TaskerPlugin.Setting.RESULT_CODE_OK);
     }
 }
@@ -0,0 +1,42 @@
+package falcosc.locus.addon.tasker.intent.receiver;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import falcosc.locus.addon.tasker.utils.LocusCache;
+import falcosc.locus.addon.tasker.utils.ReportingHelper;
+import locus.api.android.features.periodicUpdates.PeriodicUpdatesHandler;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+import locus.api.android.objects.LocusVersion;
+
+/**
+ * Receives the periodic updates of Locus to keep the update container of {@link LocusCache} hot.
+ * Is only enabled while UpdateContainer requests are made, {@link LocusCache} does disable it after the idle timeout.
+ */
+public class PeriodicUpdateReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "PeriodicUpdateReceiver"; //NON-NLS
+
+    @Override
+    public void onReceive(@NonNull Context context, @NonNull Intent intent) {
+        try {
+            LocusCache locusCache = LocusCache.getInstanceUnsafe(context);
+            PeriodicUpdatesHandler.getInstance().onReceive(context, intent, new PeriodicUpdatesHandler.OnUpdate() {
+                @Override
+                public void onIncorrectData() {
+                    Log.w(TAG, "periodic update without valid data"); //NON-NLS
+                }
+
+                @Override
+                public void onUpdate(@NonNull LocusVersion locusVersion, @NonNull UpdateContainer update) {
+                    locusCache.onPeriodicUpdate(locusVersion, update);
+                }
+            });
+        } catch (Exception e) {
+            new ReportingHelper(context).sendErrorNotification(TAG, "Can't handle periodic update", e); //NON-NLS
+        }
+    }
+}
@@ -5,13 +5,17 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import androidx.annotation.NonNull;
 
 import android.util.Log;
 
 import falcosc.locus.addon.tasker.intent.LocusActionType;
 import falcosc.locus.addon.tasker.intent.handler.TaskerAction;
+import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
 import falcosc.locus.addon.tasker.utils.Const;
+import falcosc.locus.addon.tasker.utils.PluginExecutors;
 import falcosc.locus.addon.tasker.utils.ReportingHelper;
 
 
@@ -33,13 +37,33 @@ public class TaskerActionFireReceiver extends BroadcastReceiver {
             return;
         }
 
+        //ordered flag isn't available anymore after goAsync
+        boolean orderedBroadcast = isOrderedBroadcast();
+        PendingResult result = goAsync();
+        try {
+            PluginExecutors.getWorkerExecutor().execute(() -> handle(context, intent, apiExtraBundle, actionType, result, orderedBroadcast));
+        } catch (RejectedExecutionException e) {
+            if (orderedBroadcast) {
+                //Tasker would treat the action as done otherwise
+                result.setResultCode(TaskerPlugin.Setting.RESULT_CODE_FAILED);
+            }
+            result.finish();
+            new ReportingHelper(context).sendErrorNotification(TAG, "Can't execute action " + actionType //NON-NLS
+                    + ", too many pending actions: " + PluginExecutors.getWorkerExecutor(), e); //NON-NLS
+        }
+    }
+
+    private static void handle(@NonNull Context context, @NonNull Intent intent, @NonNull Bundle apiExtraBundle,
+                               @NonNull String actionType, @NonNull PendingResult result, boolean orderedBroadcast) {
         try {
             TaskerAction action = LocusActionType.valueOf(actionType).createHandler();
-            action.setContext(context, this);
+            action.setContext(context, result, orderedBroadcast);
             Log.i(TAG, "onReceive: " + apiExtraBundle); //NON-NLS
             action.handle(intent, apiExtraBundle);
         } catch (Exception e) {
             new ReportingHelper(context).sendErrorNotification(TAG, "Can't execute action " + actionType, e); //NON-NLS
+        } finally {
+            result.finish();
         }
     }
 }
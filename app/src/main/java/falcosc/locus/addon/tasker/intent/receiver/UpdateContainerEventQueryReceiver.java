@@ -0,0 +1,66 @@
+package falcosc.locus.addon.tasker.intent.receiver;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
+import falcosc.locus.addon.tasker.uc.UpdateContainerCondition;
+import falcosc.locus.addon.tasker.uc.UpdateContainerEvents;
+import falcosc.locus.addon.tasker.utils.LocusCache;
+import falcosc.locus.addon.tasker.utils.ReportingHelper;
+
+/**
+ * Answers the Tasker query which follows a request query of {@link UpdateContainerEvents}.
+ * Only the conditions which are part of the pass through data are satisfied.
+ */
+public class UpdateContainerEventQueryReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "UCEventQueryReceiver"; //NON-NLS
+    public static final String VAR_FIELD = "%uc_event_field"; //NON-NLS
+    public static final String VAR_VALUE = "%uc_event_value"; //NON-NLS
+
+    @Override
+    public void onReceive(@NonNull Context context, @NonNull Intent intent) {
+        if (!com.twofortyfouram.locale.api.Intent.ACTION_QUERY_CONDITION.equals(intent.getAction())) {
+            return;
+        }
+
+        UpdateContainerCondition condition = UpdateContainerCondition.fromBundle(
+                intent.getBundleExtra(com.twofortyfouram.locale.api.Intent.EXTRA_BUNDLE));
+        if (condition == null) {
+            Log.i(TAG, "onReceive condition missing"); //NON-NLS
+            setResultCode(com.twofortyfouram.locale.api.Intent.RESULT_CONDITION_UNKNOWN);
+            return;
+        }
+
+        try {
+            LocusCache locusCache = LocusCache.getInstanceUnsafe(context);
+            //register again in case the plugin data got cleared
+            locusCache.registerEventCondition(condition);
+
+            Bundle passThroughData = TaskerPlugin.Event.retrievePassThroughData(intent);
+            int messageId = TaskerPlugin.Event.retrievePassThroughMessageID(intent);
+            boolean isFired = (passThroughData != null) && passThroughData.containsKey(condition.getKey())
+                    && ((messageId == -1) || locusCache.getUpdateContainerEvents().isRecentMessage(messageId));
+            if (!isFired) {
+                setResultCode(com.twofortyfouram.locale.api.Intent.RESULT_CONDITION_UNSATISFIED);
+                return;
+            }
+
+            if (TaskerPlugin.Condition.hostSupportsVariableReturn(intent.getExtras())) {
+                Bundle varsBundle = new Bundle();
+                varsBundle.putString(VAR_FIELD, condition.mField);
+                varsBundle.putString(VAR_VALUE, passThroughData.getString(condition.getKey()));
+                TaskerPlugin.addVariableBundle(getResultExtras(true), varsBundle);
+            }
+            setResultCode(com.twofortyfouram.locale.api.Intent.RESULT_CONDITION_SATISFIED);
+        } catch (Exception e) {
+            setResultCode(com.twofortyfouram.locale.api.Intent.RESULT_CONDITION_UNKNOWN);
+            new ReportingHelper(context).sendErrorNotification(TAG, "Can't query condition " + condition, e); //NON-NLS
+        }
+    }
+}
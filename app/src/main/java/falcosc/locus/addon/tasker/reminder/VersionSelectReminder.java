@@ -5,26 +5,31 @@ import android.content.SharedPreferences;
 import android.text.format.DateUtils;
 import android.widget.Toast;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import androidx.preference.PreferenceManager;
 import falcosc.locus.addon.tasker.R;
-import locus.api.android.ActionBasics;
-import locus.api.android.objects.LocusInfo;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
+import falcosc.locus.addon.tasker.utils.LocusInfoCache;
+import falcosc.locus.addon.tasker.utils.PluginExecutors;
 import locus.api.android.objects.LocusVersion;
-import locus.api.android.utils.LocusUtils;
 
 public class VersionSelectReminder {
-    private Boolean mCheckVersionSelectRequired = false;
+    private volatile boolean mCheckVersionSelectRequired = false;
+    private final AtomicBoolean mCheckRunning = new AtomicBoolean();
     private final SharedPreferences sharedPref;
     private static final String VERSION_SELECT_LAST_USAGE = "VersionSelectLastUsage"; //NON-NLS
     private final Context mContext;
+    private final LocusInfoCache mLocusInfoCache;
     private long mReminderVisibleEndTime;
 
-    public VersionSelectReminder(Context context) {
+    public VersionSelectReminder(Context context, LocusInfoCache locusInfoCache) {
         mContext = context;
+        mLocusInfoCache = locusInfoCache;
         sharedPref = PreferenceManager.getDefaultSharedPreferences(context);
 
         if (sharedPref.getLong(VERSION_SELECT_LAST_USAGE, 0) == 0) {
-            if (LocusUtils.INSTANCE.getAvailableVersions(context).size() > 1) {
+            if (locusInfoCache.getAvailableVersions().size() > 1) {
                 mCheckVersionSelectRequired = true;
             }
         } else {
@@ -37,32 +42,46 @@ public class VersionSelectReminder {
         sharedPref.edit().putLong(VERSION_SELECT_LAST_USAGE, System.currentTimeMillis()).apply();
     }
 
+    /**
+     * Checks in background to keep the LocusInfo IPC calls away from the action
+     */
     public void remindIfWrongVersionSelected(LocusVersion lv) {
-        if (!mCheckVersionSelectRequired) {
+        if (!mCheckVersionSelectRequired || (lv == null)) {
             //reminder not needed
             return;
         }
 
-        LocusInfo activeLocusInfo = new LocusInfo();
+        if (mCheckRunning.compareAndSet(false, true)) {
+            PluginExecutors.getBackgroundExecutor().execute(() -> {
+                long startTime = Diagnostics.start();
+                try {
+                    checkVersionSelection(lv);
+                } finally {
+                    mCheckRunning.set(false);
+                    Diagnostics.record(Diagnostics.REMINDER_CHECK, startTime);
+                }
+            });
+        }
+    }
+
+    private void checkVersionSelection(LocusVersion lv) {
         int runningVersionCount = 0;
-        activeLocusInfo.setPackageName(lv.getPackageName()); //set package name in case there is no running version
-        for (LocusVersion availableVersion : LocusUtils.INSTANCE.getAvailableVersions(mContext)) {
-            LocusInfo info = ActionBasics.INSTANCE.getLocusInfo(mContext, availableVersion);
-            if ((info != null) && info.isRunning()) {
+        for (LocusInfoCache.VersionInfo versionInfo : mLocusInfoCache.getVersionInfos()) {
+            if (versionInfo.mInfo.isRunning()) {
                 runningVersionCount++;
-                if (info.getLastActive() > activeLocusInfo.getLastActive()) {
-                    activeLocusInfo = info;
-                }
             }
         }
+        LocusInfoCache.VersionInfo active = mLocusInfoCache.getLastActive(true);
+        //use selected package name in case there is no running version
+        String activePackageName = (active == null) ? lv.getPackageName() : active.mInfo.getPackageName();
 
-        if (lv.getPackageName().equals(activeLocusInfo.getPackageName())) {
+        if (lv.getPackageName().equals(activePackageName)) {
             if (runningVersionCount <= 1) {
                 //stop detection for this session if only one version is running and it is the correct version
                 mCheckVersionSelectRequired = false;
             }
         } else {
-            showReminder();
+            PluginExecutors.runOnMainThread(this::showReminder);
         }
     }
 
@@ -2,6 +2,7 @@ package falcosc.locus.addon.tasker.settings;
 
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
 import android.content.pm.ComponentInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
@@ -18,6 +19,8 @@ import androidx.preference.PreferenceFragmentCompat;
 import androidx.preference.PreferenceGroup;
 import androidx.preference.TwoStatePreference;
 import falcosc.locus.addon.tasker.R;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
+import falcosc.locus.addon.tasker.utils.LocusCache;
 import falcosc.locus.addon.tasker.utils.ReportingHelper;
 
 public class SettingsFragment extends PreferenceFragmentCompat {
@@ -65,6 +68,36 @@ public class SettingsFragment extends PreferenceFragmentCompat {
 
 
         addComponentEnableChangeListener(getPreferenceScreen());
+        addDiagnosticsClickListener();
+    }
+
+    private void addDiagnosticsClickListener() {
+        Preference reset = findPreference("Diagnostics_reset"); //NON-NLS
+        if (reset != null) {
+            reset.setOnPreferenceClickListener(preference -> {
+                Diagnostics.reset();
+                Toast.makeText(mContext, R.string.pref_diagnostics_reset_done, Toast.LENGTH_SHORT).show();
+                return true;
+            });
+        }
+        Preference resetEvents = findPreference("UpdateContainerEvent_reset"); //NON-NLS
+        if (resetEvents != null) {
+            resetEvents.setOnPreferenceClickListener(preference -> {
+                LocusCache.getInstance(requireActivity().getApplication()).getUpdateContainerEvents().clear();
+                Toast.makeText(mContext, R.string.pref_event_conditions_reset_done, Toast.LENGTH_LONG).show();
+                return true;
+            });
+        }
+        Preference export = findPreference("Diagnostics_export"); //NON-NLS
+        if (export != null) {
+            export.setOnPreferenceClickListener(preference -> {
+                Intent sendIntent = new Intent(Intent.ACTION_SEND);
+                sendIntent.setType("text/plain"); //NON-NLS
+                sendIntent.putExtra(Intent.EXTRA_TEXT, Diagnostics.export());
+                startActivity(Intent.createChooser(sendIntent, getString(R.string.pref_diagnostics_export_title)));
+                return true;
+            });
+        }
     }
 
     private void addComponentEnableChangeListener(PreferenceGroup preferenceGroup) {
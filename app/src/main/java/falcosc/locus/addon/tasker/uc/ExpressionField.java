@@ -0,0 +1,380 @@
+package falcosc.locus.addon.tasker.uc;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.core.ColumnSnapshot;
+import falcosc.locus.addon.tasker.utils.TaskerField;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+
+/**
+ * User defined field like {@code kmh=my_speed*3.6} which is compiled once into a program over field slots.
+ * Supports + - * / %, parentheses and the functions abs, min, max and round.
+ */
+@SuppressWarnings("HardCodedStringLiteral")
+public final class ExpressionField extends TaskerField implements ExtUpdateContainerGetter {
+
+    private static final Pattern EXPRESSION_SEPARATOR = Pattern.compile("[;\\n]+");
+    //names are used as Tasker variables
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z][a-z0-9_]*");
+
+    private static final int OP_CONSTANT = 0;
+    private static final int OP_FIELD = 1;
+    private static final int OP_ADD = 2;
+    private static final int OP_SUBTRACT = 3;
+    private static final int OP_MULTIPLY = 4;
+    private static final int OP_DIVIDE = 5;
+    private static final int OP_MODULO = 6;
+    private static final int OP_NEGATE = 7;
+    private static final int OP_ABS = 8;
+    private static final int OP_MIN = 9;
+    private static final int OP_MAX = 10;
+    private static final int OP_ROUND = 11;
+
+    @NonNull
+    public final String mExpression;
+    //opcodes, constant and field opcodes are followed by their slot
+    private final int[] mProgram;
+    private final double[] mConstants;
+    private final ExtUpdateContainerGetter[] mFields;
+    private final boolean mRequiresRecording;
+    private final boolean mRequiresGuide;
+    private final double[] mStack;
+
+    private ExpressionField(@NonNull String name, @NonNull String expression, @NonNull Compiler compiler,
+                            @NonNull Set<String> trackRecordingKeys, @NonNull Set<String> trackGuideKeys) {
+        super(name, expression);
+        mExpression = expression;
+
+        mProgram = new int[compiler.mProgram.size()];
+        for (int i = 0; i < mProgram.length; i++) {
+            mProgram[i] = compiler.mProgram.get(i);
+        }
+        mConstants = new double[compiler.mConstants.size()];
+        for (int i = 0; i < mConstants.length; i++) {
+            mConstants[i] = compiler.mConstants.get(i);
+        }
+        mFields = new ExtUpdateContainerGetter[compiler.mFields.size()];
+        boolean requiresRecording = false;
+        boolean requiresGuide = false;
+        for (int i = 0; i < mFields.length; i++) {
+            String fieldName = compiler.mFieldNames.get(i);
+            mFields[i] = compiler.mFields.get(i);
+            requiresRecording |= trackRecordingKeys.contains(fieldName);
+            requiresGuide |= trackGuideKeys.contains(fieldName);
+        }
+        mRequiresRecording = requiresRecording;
+        mRequiresGuide = requiresGuide;
+        mStack = new double[compiler.mMaxDepth];
+    }
+
+    /**
+     * @param expressions name=expression list separated by new lines or semicolons
+     * @throws IllegalArgumentException with a message for the user if an expression is invalid
+     */
+    @NonNull
+    public static List<ExpressionField> parse(@Nullable String expressions, @NonNull Map<String, ExtUpdateContainerGetter> fieldMap,
+                                              @NonNull Set<String> trackRecordingKeys, @NonNull Set<String> trackGuideKeys) {
+        List<ExpressionField> result = new ArrayList<>();
+        if (StringUtils.isBlank(expressions)) {
+            return result;
+        }
+        Set<String> names = new HashSet<>();
+        for (String definition : EXPRESSION_SEPARATOR.split(expressions.trim())) {
+            if (StringUtils.isBlank(definition)) {
+                continue;
+            }
+            int separator = definition.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("name=expression expected: " + definition.trim());
+            }
+            String name = definition.substring(0, separator).trim();
+            String expression = definition.substring(separator + 1).trim();
+            if (!NAME_PATTERN.matcher(name).matches()) {
+                throw new IllegalArgumentException("name must be a-z followed by a-z, 0-9 or _: " + name);
+            }
+            if (fieldMap.containsKey(name)) {
+                throw new IllegalArgumentException("name is already a field: " + name);
+            }
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("name is used twice: " + name);
+            }
+            Compiler compiler = new Compiler(expression, fieldMap);
+            compiler.compile();
+            result.add(new ExpressionField(name, expression, compiler, trackRecordingKeys, trackGuideKeys));
+        }
+        return result;
+    }
+
+    @Override
+    public String apply(ExtUpdateContainer u) {
+        return String.valueOf(applyAsDouble(u));
+    }
+
+    @NonNull
+    @Override
+    public ColumnSnapshot.ValueType getValueType(ExtUpdateContainer u) {
+        return ColumnSnapshot.ValueType.NUMBER;
+    }
+
+    /**
+     * @return result or NaN if a used track recording or guide field isn't available
+     */
+    @Override
+    public synchronized double applyAsDouble(ExtUpdateContainer u) {
+        UpdateContainer update = u.mUpdateContainer;
+        if ((mRequiresRecording && !update.isTrackRecRecording()) || (mRequiresGuide && !update.isGuideEnabled())) {
+            return Double.NaN;
+        }
+
+        double[] stack = mStack;
+        int top = -1;
+        int pc = 0;
+        while (pc < mProgram.length) {
+            switch (mProgram[pc++]) {
+                case OP_CONSTANT:
+                    stack[++top] = mConstants[mProgram[pc++]];
+                    break;
+                case OP_FIELD:
+                    stack[++top] = mFields[mProgram[pc++]].applyAsDouble(u);
+                    break;
+                case OP_ADD:
+                    top--;
+                    stack[top] += stack[top + 1];
+                    break;
+                case OP_SUBTRACT:
+                    top--;
+                    stack[top] -= stack[top + 1];
+                    break;
+                case OP_MULTIPLY:
+                    top--;
+                    stack[top] *= stack[top + 1];
+                    break;
+                case OP_DIVIDE:
+                    top--;
+                    stack[top] /= stack[top + 1];
+                    break;
+                case OP_MODULO:
+                    top--;
+                    stack[top] %= stack[top + 1];
+                    break;
+                case OP_NEGATE:
+                    stack[top] = -stack[top];
+                    break;
+                case OP_ABS:
+                    stack[top] = Math.abs(stack[top]);
+                    break;
+                case OP_MIN:
+                    top--;
+                    stack[top] = Math.min(stack[top], stack[top + 1]);
+                    break;
+                case OP_MAX:
+                    top--;
+                    stack[top] = Math.max(stack[top], stack[top + 1]);
+                    break;
+                case OP_ROUND:
+                    stack[top] = Math.rint(stack[top]);
+                    break;
+                default:
+                    throw new IllegalStateException("unknown opcode");
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Recursive descent parser which emits the program in reverse polish notation
+     */
+    private static final class Compiler {
+        private final String mExpression;
+        private final Map<String, ExtUpdateContainerGetter> mFieldMap;
+        final List<Integer> mProgram = new ArrayList<>();
+        final List<Double> mConstants = new ArrayList<>();
+        final List<String> mFieldNames = new ArrayList<>();
+        final List<ExtUpdateContainerGetter> mFields = new ArrayList<>();
+        int mMaxDepth;
+        private int mDepth;
+        private int mPos;
+
+        Compiler(@NonNull String expression, @NonNull Map<String, ExtUpdateContainerGetter> fieldMap) {
+            mExpression = expression;
+            mFieldMap = fieldMap;
+        }
+
+        void compile() {
+            if (mExpression.isEmpty()) {
+                throw new IllegalArgumentException("expression is empty");
+            }
+            expression();
+            skipWhitespace();
+            if (mPos < mExpression.length()) {
+                throw error("unexpected '" + mExpression.charAt(mPos) + "'");
+            }
+        }
+
+        private void expression() {
+            term();
+            while (true) {
+                if (consume('+')) {
+                    term();
+                    emitOperator(OP_ADD, 2);
+                } else if (consume('-')) {
+                    term();
+                    emitOperator(OP_SUBTRACT, 2);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void term() {
+            unary();
+            while (true) {
+                if (consume('*')) {
+                    unary();
+                    emitOperator(OP_MULTIPLY, 2);
+                } else if (consume('/')) {
+                    unary();
+                    emitOperator(OP_DIVIDE, 2);
+                } else if (consume('%')) {
+                    unary();
+                    emitOperator(OP_MODULO, 2);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void unary() {
+            if (consume('-')) {
+                unary();
+                emitOperator(OP_NEGATE, 1);
+            } else {
+                primary();
+            }
+        }
+
+        private void primary() {
+            skipWhitespace();
+            if (consume('(')) {
+                expression();
+                expect(')');
+                return;
+            }
+
+            int start = mPos;
+            if ((mPos < mExpression.length()) && (Character.isDigit(mExpression.charAt(mPos)) || (mExpression.charAt(mPos) == '.'))) {
+                while ((mPos < mExpression.length()) && (Character.isDigit(mExpression.charAt(mPos)) || (mExpression.charAt(mPos) == '.'))) {
+                    mPos++;
+                }
+                double constant;
+                try {
+                    constant = Double.parseDouble(mExpression.substring(start, mPos));
+                } catch (NumberFormatException e) {
+                    throw error("invalid number " + mExpression.substring(start, mPos));
+                }
+                emitPush(OP_CONSTANT, mConstants.size());
+                mConstants.add(constant);
+                return;
+            }
+
+            while ((mPos < mExpression.length()) && isIdentifierChar(mExpression.charAt(mPos))) {
+                mPos++;
+            }
+            if (start == mPos) {
+                throw error((mPos < mExpression.length()) ? ("unexpected '" + mExpression.charAt(mPos) + "'") : "value expected");
+            }
+            String name = mExpression.substring(start, mPos);
+
+            if (consume('(')) {
+                function(name);
+                return;
+            }
+
+            ExtUpdateContainerGetter field = mFieldMap.get(name);
+            if (field == null) {
+                throw error("unknown field " + name);
+            }
+            int slot = mFieldNames.indexOf(name);
+            if (slot < 0) {
+                slot = mFields.size();
+                mFieldNames.add(name);
+                mFields.add(field);
+            }
+            emitPush(OP_FIELD, slot);
+        }
+
+        private void function(@NonNull String name) {
+            switch (name) {
+                case "abs":
+                    expression();
+                    emitOperator(OP_ABS, 1);
+                    break;
+                case "round":
+                    expression();
+                    emitOperator(OP_ROUND, 1);
+                    break;
+                case "min":
+                case "max":
+                    expression();
+                    expect(',');
+                    expression();
+                    emitOperator("min".equals(name) ? OP_MIN : OP_MAX, 2);
+                    break;
+                default:
+                    throw error("unknown function " + name);
+            }
+            expect(')');
+        }
+
+        private void emitPush(int opcode, int slot) {
+            mProgram.add(opcode);
+            mProgram.add(slot);
+            mDepth++;
+            mMaxDepth = Math.max(mMaxDepth, mDepth);
+        }
+
+        private void emitOperator(int opcode, int operands) {
+            mProgram.add(opcode);
+            mDepth -= operands - 1;
+        }
+
+        private static boolean isIdentifierChar(char c) {
+            return ((c >= 'a') && (c <= 'z')) || ((c >= '0') && (c <= '9')) || (c == '_');
+        }
+
+        private void skipWhitespace() {
+            while ((mPos < mExpression.length()) && Character.isWhitespace(mExpression.charAt(mPos))) {
+                mPos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if ((mPos < mExpression.length()) && (mExpression.charAt(mPos) == c)) {
+                mPos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        @NonNull
+        private IllegalArgumentException error(@NonNull String message) {
+            return new IllegalArgumentException(message + " at " + (mPos + 1) + " in " + mExpression);
+        }
+    }
+}
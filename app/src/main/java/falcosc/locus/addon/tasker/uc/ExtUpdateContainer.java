@@ -9,14 +9,41 @@ public class ExtUpdateContainer {
     @NonNull
     public final UpdateContainer mUpdateContainer;
 
-    public ExtUpdateContainer(@NonNull UpdateContainer updateContainer) {
+    private final int mColumnCount;
+
+    @NonNull
+    public final SampleHistory.Statistics mStatistics;
+
+    /**
+     * @param columnCount number of {@link UpdateContainerField} ordinals
+     */
+    public ExtUpdateContainer(@NonNull UpdateContainer updateContainer, int columnCount) {
+        this(updateContainer, columnCount, new SampleHistory.Statistics());
+    }
+
+    /**
+     * @param statistics aggregates of the sample history including this update container
+     */
+    public ExtUpdateContainer(@NonNull UpdateContainer updateContainer, int columnCount, @NonNull SampleHistory.Statistics statistics) {
         mUpdateContainer = updateContainer;
+        mColumnCount = columnCount;
+        mStatistics = statistics;
+    }
+
+    private UpdateContainerSnapshot mSnapshot;
+
+    @NonNull
+    public synchronized UpdateContainerSnapshot getSnapshot() {
+        if (mSnapshot == null) {
+            mSnapshot = new UpdateContainerSnapshot(mUpdateContainer, mColumnCount);
+        }
+        return mSnapshot;
     }
 
     @SuppressWarnings("InstanceVariableOfConcreteClass")
     private NavigationProgress mNavigationProgress;
 
-    public NavigationProgress getNavigationProgress() {
+    public synchronized NavigationProgress getNavigationProgress() {
         if (mNavigationProgress == null) {
             mNavigationProgress = new NavigationProgress(mUpdateContainer);
         }
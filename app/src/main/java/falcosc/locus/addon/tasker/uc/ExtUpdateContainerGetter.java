@@ -1,5 +1,19 @@
 package falcosc.locus.addon.tasker.uc;
 
+import androidx.annotation.NonNull;
+import falcosc.locus.addon.tasker.core.ColumnSnapshot;
+
 public interface ExtUpdateContainerGetter {
     String apply(ExtUpdateContainer u);
+
+    /**
+     * @return numeric value, booleans are 1 or 0 and everything else is NaN
+     */
+    double applyAsDouble(ExtUpdateContainer u);
+
+    /**
+     * @return type of the value, strings are text even if they look like a number
+     */
+    @NonNull
+    ColumnSnapshot.ValueType getValueType(ExtUpdateContainer u);
 }
@@ -2,6 +2,7 @@ package falcosc.locus.addon.tasker.uc;
 
 import androidx.annotation.NonNull;
 import androidx.arch.core.util.Function;
+import falcosc.locus.addon.tasker.core.ColumnSnapshot;
 import falcosc.locus.addon.tasker.utils.TaskerField;
 
 public class ExtendedUpdateContainerField extends TaskerField implements ExtUpdateContainerGetter {
@@ -15,4 +16,13 @@ public class ExtendedUpdateContainerField extends TaskerField implements ExtUpda
     public String apply(ExtUpdateContainer u) {
         return String.valueOf(mExtUpdateContainerGetter.apply(u));
     }
+
+    public double applyAsDouble(ExtUpdateContainer u) {
+        return UpdateContainerSnapshot.toDouble(mExtUpdateContainerGetter.apply(u));
+    }
+
+    @NonNull
+    public ColumnSnapshot.ValueType getValueType(ExtUpdateContainer u) {
+        return ColumnSnapshot.valueTypeOf(mExtUpdateContainerGetter.apply(u));
+    }
 }
@@ -0,0 +1,233 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.core.TrackData;
+import falcosc.locus.addon.tasker.core.TrackDataCache;
+import falcosc.locus.addon.tasker.core.TrackDataStore;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
+import falcosc.locus.addon.tasker.utils.LocusCache;
+import falcosc.locus.addon.tasker.utils.PluginExecutors;
+import falcosc.locus.addon.tasker.utils.ReportingHelper;
+import locus.api.android.ActionBasics;
+import locus.api.android.utils.exceptions.RequiredVersionMissingException;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Prepares the TrackData of the guide target on the background executor, so fires don't wait for the track download.
+ * The prepared data is swapped in as one immutable entry.
+ */
+public final class GuidedTrackLoader {
+
+    private static final String TAG = "GuidedTrackLoader"; //NON-NLS
+    private static final long NO_TARGET = -1L;
+    //the guided track can be edited in Locus, a target change loads at once, edits of the same target after this time
+    private static final long REVALIDATE_MS = 300000L;
+    private static final long RETRY_MS = 10000L;
+    private static final TrackData NO_TRACK = new TrackData(null);
+    //a few long routes or a lot of short planner routes
+    private static final long CACHE_MAX_POINTS = 500000L;
+
+    private static final class Entry {
+        final long mTargetId;
+        final TrackData mTrackData;
+        final long mValidatedTime;
+
+        Entry(long targetId, @NonNull TrackData trackData, long validatedTime) {
+            mTargetId = targetId;
+            mTrackData = trackData;
+            mValidatedTime = validatedTime;
+        }
+    }
+
+    private final LocusCache mLocusCache;
+    private final TrackDataCache mCache = new TrackDataCache(CACHE_MAX_POINTS);
+    private final AtomicReference<Entry> mEntry = new AtomicReference<>();
+    //a target is loaded at most once at a time, concurrent loads would write the same store file
+    private final Set<Long> mLoadingTargetIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile long mRequestedTargetId = NO_TARGET;
+    private volatile long mFailedTargetId = NO_TARGET;
+    private volatile long mFailedTime;
+
+    public GuidedTrackLoader(@NonNull LocusCache locusCache) {
+        mLocusCache = locusCache;
+    }
+
+    /**
+     * Starts loading if the target or the settings changed or the data needs a check, doesn't block
+     *
+     * @return data of the guide target or null while it is loading
+     */
+    @Nullable
+    public TrackData getTrackData(long guideTargetId) {
+        if (guideTargetId == NO_TARGET) {
+            return NO_TRACK;
+        }
+
+        mRequestedTargetId = guideTargetId;
+        Entry entry = mEntry.get();
+        if ((entry != null) && (entry.mTargetId == guideTargetId)) {
+            //new settings apply with the next load
+            if (((SystemClock.elapsedRealtime() - entry.mValidatedTime) > REVALIDATE_MS)
+                    || (entry.mTrackData.hasTrack() && !isPreparedWithSettings(entry.mTrackData))) {
+                scheduleLoad(guideTargetId);
+            }
+            return entry.mTrackData;
+        }
+
+        //switched back to a recently guided track, use it until the load checks its content
+        TrackData cached = mCache.getLatest(guideTargetId);
+        if ((cached != null) && !isPreparedWithSettings(cached)) {
+            cached = null;
+        }
+        if (cached != null) {
+            mEntry.set(new Entry(guideTargetId, cached, 0L));
+        }
+        scheduleLoad(guideTargetId);
+        return cached;
+    }
+
+    @NonNull
+    public TrackDataCache getTrackDataCache() {
+        return mCache;
+    }
+
+    /**
+     * Drops the current and cached data, the next request loads it again
+     */
+    public void reset() {
+        mEntry.set(null);
+        mCache.clear();
+    }
+
+    private void scheduleLoad(long targetId) {
+        if ((targetId == mFailedTargetId) && ((SystemClock.elapsedRealtime() - mFailedTime) < RETRY_MS)) {
+            return;
+        }
+        if (!mLoadingTargetIds.add(targetId)) {
+            //already loading
+            return;
+        }
+        PluginExecutors.getBackgroundExecutor().execute(() -> {
+            try {
+                load(targetId);
+            } finally {
+                mLoadingTargetIds.remove(targetId);
+            }
+        });
+    }
+
+    private void load(long targetId) {
+        long startTime = Diagnostics.start();
+        TrackData trackData;
+        try {
+            Track track = ActionBasics.INSTANCE.getTrack(mLocusCache.getApplicationContext(), mLocusCache.requireLocusVersion(), targetId);
+            Entry entry = mEntry.get();
+            TrackData latest = (entry != null) ? entry.mTrackData : null;
+            if (track == null) {
+                trackData = NO_TRACK;
+            } else {
+                //hash the points once for all checks
+                long contentHash = TrackData.computeContentHash(track);
+                trackData = ((latest != null) && isSameTrack(latest, track, contentHash) && isPreparedWithSettings(latest))
+                        ? latest : null;
+                if (trackData == null) {
+                    trackData = mCache.get(track.getId(), contentHash, mLocusCache.getTrackMatchTolerance(),
+                            mLocusCache.getClimbMinGain(), mLocusCache.getClimbMinGrade());
+                }
+                if (trackData == null) {
+                    //an edited route keeps the data of its unchanged end
+                    trackData = prepareTrackData(track, contentHash, latest);
+                    mCache.put(trackData);
+                }
+            }
+        } catch (RequiredVersionMissingException ignored) {
+            trackData = NO_TRACK;
+        } catch (Exception e) {
+            mFailedTargetId = targetId;
+            mFailedTime = SystemClock.elapsedRealtime();
+            new ReportingHelper(mLocusCache.getApplicationContext())
+                    .sendErrorNotification(TAG, "Can not load guided track", e); //NON-NLS
+            return;
+        }
+
+        //the guide target may have changed during the download
+        if (mRequestedTargetId == targetId) {
+            mEntry.set(new Entry(targetId, trackData, SystemClock.elapsedRealtime()));
+        }
+        Diagnostics.record(Diagnostics.TRACK_LOAD, startTime);
+    }
+
+    /**
+     * @param previous data of an older version of the track, its unchanged end is reused
+     */
+    @NonNull
+    private TrackData prepareTrackData(@NonNull Track track, long contentHash, @Nullable TrackData previous) {
+        double tolerance = mLocusCache.getTrackMatchTolerance();
+        double minClimbGain = mLocusCache.getClimbMinGain();
+        double minClimbGrade = mLocusCache.getClimbMinGrade();
+        TrackDataStore store = mLocusCache.mTrackDataStore;
+        try {
+            TrackData stored = store.load(track, contentHash, tolerance, minClimbGain, minClimbGrade);
+            if (stored != null) {
+                Log.i(TAG, "loaded track data of: " + track.getName()); //NON-NLS
+                return stored;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Can't load track data", e); //NON-NLS
+        }
+
+        TrackData trackData = new TrackData(track, tolerance, minClimbGain, minClimbGrade, previous);
+        Log.i(TAG, "recalculate track elevation of: " + track.getName() //NON-NLS
+                + ", reused points: " + trackData.getReusedPointCount()); //NON-NLS
+        try {
+            store.save(trackData);
+        } catch (IOException e) {
+            Log.w(TAG, "Can't save track data", e); //NON-NLS
+        }
+        return trackData;
+    }
+
+    private boolean isPreparedWithSettings(@NonNull TrackData trackData) {
+        return trackData.isPreparedWith(mLocusCache.getTrackMatchTolerance(),
+                mLocusCache.getClimbMinGain(), mLocusCache.getClimbMinGrade());
+    }
+
+    private static boolean isSameTrack(@NonNull TrackData trackData, @NonNull Track track, long contentHash) {
+        if (!trackData.hasTrack()) {
+            Log.d(TAG, "is not same track because one is null"); //NON-NLS
+            return false;
+        }
+
+        if (trackData.mTrackId != track.getId()) {
+            Log.d(TAG, "is not same track because id miss match"); //NON-NLS
+            return false;
+        }
+
+        if (trackData.getPointCount() != track.getPointsCount()) {
+            Log.d(TAG, "is not same track because point count miss match, " //NON-NLS
+                    + trackData.getPointCount() + " != " + track.getPointsCount());
+            return false;
+        }
+
+        if (trackData.mHasAltitude != track.getPoint(0).getHasAltitude()) {
+            Log.d(TAG, "is not same track because altitude miss match"); //NON-NLS
+            return false;
+        }
+
+        if (!trackData.hasSameContent(track, contentHash)) {
+            Log.d(TAG, "is not same track because content miss match"); //NON-NLS
+            return false;
+        }
+        return true;
+    }
+}
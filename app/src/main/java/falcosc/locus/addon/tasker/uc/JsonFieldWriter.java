@@ -0,0 +1,137 @@
+package falcosc.locus.addon.tasker.uc;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.core.ColumnSnapshot;
+
+/**
+ * Writes field values as flat JSON object into a reused buffer, the JSON type comes from the type of the value.
+ * Not thread safe, the owner has to synchronize.
+ */
+final class JsonFieldWriter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray(); //NON-NLS
+
+    private final StringBuilder mBuffer = new StringBuilder(INITIAL_CAPACITY);
+
+    void begin() {
+        mBuffer.setLength(0);
+        mBuffer.append('{');
+    }
+
+    void field(@NonNull String name, @Nullable String value, @NonNull ColumnSnapshot.ValueType type) {
+        if (mBuffer.length() > 1) {
+            mBuffer.append(',');
+        }
+        appendString(name);
+        mBuffer.append(':');
+        appendValue(value, type);
+    }
+
+    @NonNull
+    String end() {
+        mBuffer.append('}');
+        return mBuffer.toString();
+    }
+
+    private void appendValue(@Nullable String value, @NonNull ColumnSnapshot.ValueType type) {
+        if (value == null) {
+            mBuffer.append("null"); //NON-NLS
+            return;
+        }
+        switch (type) {
+            case NUMBER:
+                //NaN is the value of not available numbers, JSON has no NaN and Infinity
+                mBuffer.append(isJsonNumber(value) ? value : "null"); //NON-NLS
+                break;
+            case BOOLEAN:
+                mBuffer.append(value);
+                break;
+            case TEXT:
+                appendString(value);
+                break;
+            default:
+                mBuffer.append("null"); //NON-NLS
+        }
+    }
+
+    private void appendString(@NonNull String value) {
+        mBuffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    mBuffer.append("\\\""); //NON-NLS
+                    break;
+                case '\\':
+                    mBuffer.append("\\\\"); //NON-NLS
+                    break;
+                case '\n':
+                    mBuffer.append("\\n"); //NON-NLS
+                    break;
+                case '\r':
+                    mBuffer.append("\\r"); //NON-NLS
+                    break;
+                case '\t':
+                    mBuffer.append("\\t"); //NON-NLS
+                    break;
+                default:
+                    if (c < 0x20) {
+                        mBuffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]); //NON-NLS
+                    } else {
+                        mBuffer.append(c);
+                    }
+            }
+        }
+        mBuffer.append('"');
+    }
+
+    /**
+     * JSON number grammar, Java formats like Infinity or 1.0E10 are handled like the JSON spec
+     */
+    @SuppressWarnings("OverlyComplexMethod")
+    static boolean isJsonNumber(@NonNull String value) {
+        int length = value.length();
+        int i = 0;
+        if ((i < length) && (value.charAt(i) == '-')) {
+            i++;
+        }
+        if ((i >= length) || !isDigit(value.charAt(i))) {
+            return false;
+        }
+        //no leading zeros
+        if ((value.charAt(i) == '0') && ((i + 1) < length) && isDigit(value.charAt(i + 1))) {
+            return false;
+        }
+        while ((i < length) && isDigit(value.charAt(i))) {
+            i++;
+        }
+        if ((i < length) && (value.charAt(i) == '.')) {
+            i++;
+            if ((i >= length) || !isDigit(value.charAt(i))) {
+                return false;
+            }
+            while ((i < length) && isDigit(value.charAt(i))) {
+                i++;
+            }
+        }
+        if ((i < length) && ((value.charAt(i) == 'e') || (value.charAt(i) == 'E'))) {
+            i++;
+            if ((i < length) && ((value.charAt(i) == '+') || (value.charAt(i) == '-'))) {
+                i++;
+            }
+            if ((i >= length) || !isDigit(value.charAt(i))) {
+                return false;
+            }
+            while ((i < length) && isDigit(value.charAt(i))) {
+                i++;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0') && (c <= '9');
+    }
+}
@@ -0,0 +1,181 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import locus.api.android.objects.LocusVersion;
+
+/**
+ * Locus labels of the update container fields, resolved once per Locus version and locale because
+ * {@link Resources#getIdentifier} is slow and every field needs it at start.
+ * The table is stored in a small file which is memory mapped on the next start.
+ */
+public final class LocusLabelCache {
+
+    private static final String TAG = "LocusLabelCache"; //NON-NLS
+    private static final String FILE_NAME = "locus_labels.bin"; //NON-NLS
+    private static final int MAGIC = 0x4c4c4332; //LLC2
+    private static final int NULL_STRING = -1;
+
+    @Nullable
+    private final Resources mLocusResources;
+    @Nullable
+    private final LocusVersion mLocusVersion;
+    //labels are translated, a language change needs other labels
+    @NonNull
+    private final String mLocale;
+    private final File mFile;
+    //null values are names which aren't available in this Locus version
+    private final Map<String, String> mLabels = new HashMap<>();
+    private boolean mModified;
+    private boolean mLoaded;
+
+    public LocusLabelCache(@NonNull Context context, @Nullable Resources locusResources, @Nullable LocusVersion locusVersion) {
+        mLocusResources = locusResources;
+        mLocusVersion = locusVersion;
+        mLocale = (locusResources != null) ? getLocale(locusResources.getConfiguration()) : "";
+        mFile = new File(context.getCacheDir(), FILE_NAME);
+        if ((locusResources != null) && (locusVersion != null)) {
+            load();
+        }
+    }
+
+    @NonNull
+    @SuppressWarnings("deprecation")
+    private static String getLocale(@NonNull Configuration configuration) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return configuration.getLocales().toLanguageTags();
+        }
+        return configuration.locale.toLanguageTag();
+    }
+
+    /**
+     * @return true if the labels were read from the file instead of Locus resources
+     */
+    public boolean isLoaded() {
+        return mLoaded;
+    }
+
+    @Nullable
+    public String getLabel(@Nullable String locusResName) {
+        if ((mLocusResources == null) || (locusResName == null) || (mLocusVersion == null)) {
+            return null;
+        }
+
+        if (mLabels.containsKey(locusResName)) {
+            return mLabels.get(locusResName);
+        }
+
+        String label = null;
+        int id = mLocusResources.getIdentifier(locusResName, "string", mLocusVersion.getPackageName()); //NON-NLS
+        if (id != 0) {
+            label = mLocusResources.getString(id);
+        }
+        mLabels.put(locusResName, label);
+        mModified = true;
+        return label;
+    }
+
+    /**
+     * Writes the table if labels got resolved from Locus resources
+     */
+    public void save() {
+        if (!mModified || (mLocusVersion == null)) {
+            return;
+        }
+
+        File tmpFile = new File(mFile.getPath() + ".tmp"); //NON-NLS
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmpFile))) {
+            out.writeInt(MAGIC);
+            writeString(out, mLocusVersion.getPackageName());
+            out.writeInt(mLocusVersion.getVersionCode());
+            writeString(out, mLocale);
+            out.writeInt(mLabels.size());
+            for (Map.Entry<String, String> entry : mLabels.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Can't write " + tmpFile, e); //NON-NLS
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            return;
+        }
+
+        if (tmpFile.renameTo(mFile)) {
+            mModified = false;
+            Log.d(TAG, "saved labels: " + mLabels.size()); //NON-NLS
+        } else {
+            Log.w(TAG, "Can't replace " + mFile); //NON-NLS
+        }
+    }
+
+    private void load() {
+        if (!mFile.isFile()) {
+            return;
+        }
+
+        try (FileInputStream in = new FileInputStream(mFile); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            if ((buffer.getInt() != MAGIC)
+                    || !mLocusVersion.getPackageName().equals(readString(buffer))
+                    || (buffer.getInt() != mLocusVersion.getVersionCode())
+                    || !mLocale.equals(readString(buffer))) {
+                Log.d(TAG, "labels of other Locus version or locale, resolve again"); //NON-NLS
+                return;
+            }
+
+            int count = buffer.getInt();
+            Map<String, String> labels = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                labels.put(readString(buffer), readString(buffer));
+            }
+            mLabels.putAll(labels);
+            mLoaded = true;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.w(TAG, "Can't read " + mFile, e); //NON-NLS
+        }
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nullable
+    private static String readString(@NonNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if ((length < 0) || (length > buffer.remaining())) {
+            throw new IllegalArgumentException("invalid string length " + length); //NON-NLS
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -2,18 +2,16 @@ package falcosc.locus.addon.tasker.uc;
 
 import android.util.Log;
 
-import java.util.List;
+import java.util.Locale;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import falcosc.locus.addon.tasker.RequiredDataMissingException;
+import falcosc.locus.addon.tasker.core.TrackData;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
 import falcosc.locus.addon.tasker.utils.LocusCache;
 import falcosc.locus.addon.tasker.utils.ReportingHelper;
-import locus.api.android.ActionBasics;
 import locus.api.android.features.periodicUpdates.UpdateContainer;
-import locus.api.android.utils.exceptions.RequiredVersionMissingException;
 import locus.api.objects.extra.Location;
-import locus.api.objects.geoData.Track;
 
 public final class NavigationProgress {
     private int mRemainingUphill;
@@ -22,12 +20,29 @@ public final class NavigationProgress {
     private int mRemainingDownhillPercent;
     private int mTotalUphill;
     private int mTotalDownhill;
+    private int mRemainingDistance;
+    private int mRemainingTimeNaismith;
+    private boolean mHasNextClimb;
+    private int mNextClimbStart;
+    private int mNextClimbGain;
+    private int mNextClimbLength;
+    private float mNextClimbGrade;
+    private boolean mHasCurrentClimb;
+    private int mCurrentClimbRemainingDistance;
+    private int mCurrentClimbRemainingGain;
+    private float mCurrentClimbGrade;
 
     public int pointIndex = -1;
     public String trackName;
     private ErrorStatus mError;
+    //distance fields don't need elevation
+    private ErrorStatus mElevationError;
+    private static final Object TRACK_LOCK = new Object();
 
     private static final String TAG = "CalcElevationToTarget"; //NON-NLS
+    //Naismith's rule: 5 km/h plus one hour per 600 m ascent
+    private static final double NAISMITH_SECONDS_PER_METER = 3600.0 / 5000.0;
+    private static final double NAISMITH_SECONDS_PER_ASCENT_METER = 3600.0 / 600.0;
 
     @SuppressWarnings("HardCodedStringLiteral")
     public enum ErrorStatus {
@@ -35,6 +50,9 @@ public final class NavigationProgress {
         NO_NAV("noNAV"),
         NO_ELE("noELE"),
         OFF_TRK("offTRK"),
+        NO_CLIMB("noCLIMB"),
+        //track of the guide target is prepared in the background
+        LOADING("LOADING"),
         RESET("RESET");
 
         private final String mText;
@@ -50,252 +68,227 @@ public final class NavigationProgress {
         }
     }
 
-    public static class Point {
-        int remainingUphill;
-        int remainingDownhill;
-    }
-
-    public static class TrackData {
-        public final Track mTrack;
-        public int mPreviousFoundIndex;
-        public Point[] mRemainingTrackElevation;
-
-        public TrackData(Track track) {
-            mTrack = track;
-            calculateRemainingElevation(track);
-        }
-
-        @SuppressWarnings("NumericCastThatLosesPrecision")
-        public void calculateRemainingElevation(@Nullable Track track) {
-            if (track == null) {
-                mRemainingTrackElevation = new Point[0];
-                return;
-            }
-
-            Log.i(TAG, "recalculate track elevation of: " + track.getName()); //NON-NLS
-
-            List<Location> points = track.getPoints();
-            int size = points.size();
-            //make array one point larger because we assign remaining elevation to point+1 because remain is current target point -1
-            mRemainingTrackElevation = new Point[size + 1];
-            double uphillElevation = 0.0;
-            double downhillElevation = 0.0;
-            int filterAmount = 3; // Close-ish match to Strava's measured elevation.
-
-            boolean pastFilter = false;
-            double nextAltitude = points.get(size - 1).getAltitude();
-            for (int i = size - 1; i >= 0; i--) {
-                double currentAltitude = points.get(i).getAltitude();
-                if (nextAltitude > currentAltitude) {
-                    double difference = nextAltitude - currentAltitude;
-                    if(difference >= filterAmount) {
-                        uphillElevation += difference;
-                        pastFilter = true;
-                    }
-                } else {
-                    double difference = currentAltitude - nextAltitude;
-                    if(difference >= filterAmount) {
-                        downhillElevation += difference;
-                        pastFilter = true;
-                    }
-                }
-
-                Point p = new Point();
-                p.remainingUphill = (int) uphillElevation;
-                p.remainingDownhill = (int) downhillElevation;
-                mRemainingTrackElevation[i + 1] = p;
-
-                if(pastFilter)
-                    nextAltitude = currentAltitude;
-            }
-            //assign remaining altitude of point 0 because we have no values at 0 because we read 1 point ahead.
-            mRemainingTrackElevation[0] = mRemainingTrackElevation[1];
-
-            Log.i(TAG, "Points calculated: " + size); //NON-NLS
-        }
-    }
-
     public String getRemainingUphill() {
-        if (mError != null) {
-            return mError.toString();
+        if (getElevationError() != null) {
+            return getElevationError().toString();
         }
         return Integer.toString(mRemainingUphill);
     }
 
     public String getRemainingDownhill() {
-        if (mError != null) {
-            return mError.toString();
+        if (getElevationError() != null) {
+            return getElevationError().toString();
         }
         return Integer.toString(mRemainingDownhill);
     }
 
     public String getRemainingUphillPercent() {
-        if (mError != null) {
-            return mError.toString();
+        if (getElevationError() != null) {
+            return getElevationError().toString();
         }
         return Integer.toString(mRemainingUphillPercent);
     }
 
     public String getRemainingDownhillPercent() {
-        if (mError != null) {
-            return mError.toString();
+        if (getElevationError() != null) {
+            return getElevationError().toString();
         }
         return Integer.toString(mRemainingDownhillPercent);
     }
 
     public String getTotalUphill() {
-        if (mError != null) {
-            return mError.toString();
+        if (getElevationError() != null) {
+            return getElevationError().toString();
         }
         return Integer.toString(mTotalUphill);
     }
 
     public String getTotalDownhill() {
+        if (getElevationError() != null) {
+            return getElevationError().toString();
+        }
+        return Integer.toString(mTotalDownhill);
+    }
+
+    public String getRemainingDistance() {
         if (mError != null) {
             return mError.toString();
         }
-        return Integer.toString(mTotalDownhill);
+        return Integer.toString(mRemainingDistance);
     }
 
-    public NavigationProgress(@NonNull UpdateContainer updateContainer) {
+    public String getRemainingTimeNaismith() {
+        if (mError != null) {
+            return mError.toString();
+        }
+        return Integer.toString(mRemainingTimeNaismith);
+    }
 
-        LocusCache locusCache = LocusCache.getInstanceNullable();
+    public String getNextClimbStart() {
+        return getClimbValue(mHasNextClimb, Integer.toString(mNextClimbStart));
+    }
 
-        if (locusCache == null) {
-            Log.e(TAG, "locus cache missing"); //NON-NLS
-            return;
-        }
+    public String getNextClimbGain() {
+        return getClimbValue(mHasNextClimb, Integer.toString(mNextClimbGain));
+    }
 
-        try {
-            setActiveTrack(locusCache, updateContainer);
-            mError = validateNavigationProgress(locusCache.mLastSelectedTrack, updateContainer);
-            if (mError == null) {
-                locusCache.mLastSelectedTrack.mPreviousFoundIndex = pointIndex;
-                mRemainingUphill = locusCache.mLastSelectedTrack.mRemainingTrackElevation[pointIndex].remainingUphill;
-                mRemainingDownhill = locusCache.mLastSelectedTrack.mRemainingTrackElevation[pointIndex].remainingDownhill;
-                mRemainingUphillPercent = (int)((float)mRemainingUphill / locusCache.mLastSelectedTrack.mRemainingTrackElevation[0].remainingUphill * 100);
-                mRemainingDownhillPercent = (int)((float)mRemainingDownhill / locusCache.mLastSelectedTrack.mRemainingTrackElevation[0].remainingDownhill * 100);
-                mTotalUphill = locusCache.mLastSelectedTrack.mRemainingTrackElevation[0].remainingUphill;
-                mTotalDownhill = locusCache.mLastSelectedTrack.mRemainingTrackElevation[0].remainingDownhill;
-                trackName = locusCache.mLastSelectedTrack.mTrack.getName();
-            }
-        } catch (Exception e) {
-            new ReportingHelper(locusCache.getApplicationContext())
-                    .sendErrorNotification(TAG, "Can not get remaining elevation", e); //NON-NLS
-
-            //Error case
-            //Don't search for the current track, this is done at the entry point of a new update request
-            //reset track on error
-            locusCache.mLastSelectedTrack = null;
-            mError = ErrorStatus.RESET;
-        }
+    public String getNextClimbLength() {
+        return getClimbValue(mHasNextClimb, Integer.toString(mNextClimbLength));
     }
 
-    private ErrorStatus validateNavigationProgress(@NonNull TrackData track, @NonNull UpdateContainer updateContainer) {
-        if ((updateContainer.getGuideType() != UpdateContainer.GUIDE_TYPE_TRACK_GUIDE)
-                && (updateContainer.getGuideType() != UpdateContainer.GUIDE_TYPE_TRACK_NAVIGATION)) {
-            return ErrorStatus.NO_NAV;
-        }
+    public String getNextClimbGrade() {
+        return getClimbValue(mHasNextClimb, formatGrade(mNextClimbGrade));
+    }
 
-        if (track.mTrack == null) {
-            return ErrorStatus.NO_TRK;
-        }
+    public String getCurrentClimbRemainingDistance() {
+        return getClimbValue(mHasCurrentClimb, Integer.toString(mCurrentClimbRemainingDistance));
+    }
 
-        if (track.mRemainingTrackElevation[0].remainingUphill == 0) {
-            return ErrorStatus.NO_ELE;
-        }
+    public String getCurrentClimbRemainingGain() {
+        return getClimbValue(mHasCurrentClimb, Integer.toString(mCurrentClimbRemainingGain));
+    }
 
-        Location nextPoint = updateContainer.getGuideWptLoc();
-        pointIndex = findMatchingPointIndex(track.mTrack.getPoints(), nextPoint, track.mPreviousFoundIndex);
+    public String getCurrentClimbGrade() {
+        return getClimbValue(mHasCurrentClimb, formatGrade(mCurrentClimbGrade));
+    }
 
-        if (pointIndex < 0) {
-            //point not found on track, try to find the nav point because this may align because the selected track has less points
-            Location nextNavPoint = updateContainer.getGuideNavPoint1Loc();
-            pointIndex = findMatchingPointIndex(track.mTrack.getPoints(), nextNavPoint, track.mPreviousFoundIndex);
+    @NonNull
+    private String getClimbValue(boolean hasClimb, @NonNull String value) {
+        if (getElevationError() != null) {
+            return getElevationError().toString();
         }
-
-        if (pointIndex < 0) {
-            return ErrorStatus.OFF_TRK;
+        if (!hasClimb) {
+            return ErrorStatus.NO_CLIMB.toString();
         }
-        return null;
+        return value;
     }
 
-    private static void setActiveTrack(@NonNull LocusCache locusCache, @NonNull UpdateContainer updateContainer) throws RequiredDataMissingException {
-        try {
-            Track newTrack = null;
-            long guideTargetId = updateContainer.getGuideTargetId();
-            if (guideTargetId != -1L) {
-                newTrack = ActionBasics.INSTANCE.getTrack(locusCache.getApplicationContext(), locusCache.requireLocusVersion(), guideTargetId);
-            }
+    @NonNull
+    private static String formatGrade(float grade) {
+        return String.format(Locale.ROOT, "%.1f", grade); //NON-NLS
+    }
 
-            if ((locusCache.mLastSelectedTrack == null) || !isSameTrack(locusCache.mLastSelectedTrack.mTrack, newTrack)) {
-                //recalculate or clear if null
-                locusCache.mLastSelectedTrack = new TrackData(newTrack);
-            }
-        } catch (RequiredVersionMissingException ignored) {
-            locusCache.mLastSelectedTrack = new TrackData(null);
-        }
+    @Nullable
+    private ErrorStatus getElevationError() {
+        return (mError != null) ? mError : mElevationError;
     }
 
-    private static boolean isSameTrack(Track track1, Track track2) {
-        if ((track1 == null) || (track2 == null)) {
-            Log.d(TAG, "is not same track because one is null"); //NON-NLS
-            //is same if both null or can't be same if track2 is not null
-            return track2 == null;
-        }
+    public NavigationProgress(@NonNull UpdateContainer updateContainer) {
 
-        if (track1.getId() != track2.getId()) {
-            Log.d(TAG, "is not same track because id miss match"); //NON-NLS
-            return false;
-        }
+        LocusCache locusCache = LocusCache.getInstanceNullable();
 
-        if (track1.getPointsCount() != track2.getPointsCount()) {
-            Log.d(TAG, "is not same track because point count miss match, " //NON-NLS
-                    + track1.getPointsCount() + " != " + track2.getPointsCount());
-            return false;
+        if (locusCache == null) {
+            Log.e(TAG, "locus cache missing"); //NON-NLS
+            return;
         }
 
-        if (track1.getPoint(0).getHasAltitude() != track2.getPoint(0).getHasAltitude()) {
-            Log.d(TAG, "is not same track because altitude miss match"); //NON-NLS
-            return false;
+        long startTime = Diagnostics.start();
+        //actions run on several worker threads, the matching state of the track is shared between them
+        synchronized (TRACK_LOCK) {
+            try {
+                TrackData track = getGuidedTrack(locusCache, updateContainer);
+                mError = validateNavigationProgress(track, updateContainer);
+                if (mError == null) {
+                    track.mPreviousFoundIndex = pointIndex;
+                    setDistances(track, updateContainer);
+                    mElevationError = (track.getTotalUphill() == 0) ? ErrorStatus.NO_ELE : null;
+                    mRemainingUphill = track.getRemainingUphill(pointIndex);
+                    mRemainingDownhill = track.getRemainingDownhill(pointIndex);
+                    mRemainingUphillPercent = (int)((float)mRemainingUphill / track.getTotalUphill() * 100);
+                    mRemainingDownhillPercent = (int)((float)mRemainingDownhill / track.getTotalDownhill() * 100);
+                    mTotalUphill = track.getTotalUphill();
+                    mTotalDownhill = track.getTotalDownhill();
+                    mRemainingTimeNaismith = (int) ((mRemainingDistance * NAISMITH_SECONDS_PER_METER)
+                            + (mRemainingUphill * NAISMITH_SECONDS_PER_ASCENT_METER));
+                    trackName = track.mTrackName;
+                }
+            } catch (Exception e) {
+                new ReportingHelper(locusCache.getApplicationContext())
+                        .sendErrorNotification(TAG, "Can not get remaining elevation", e); //NON-NLS
+
+                //Error case
+                //reset track on error, the next request loads it again
+                locusCache.mGuidedTrackLoader.reset();
+                mError = ErrorStatus.RESET;
+            }
         }
-        return true;
+        Diagnostics.record(Diagnostics.NAVIGATION_PROGRESS, startTime);
     }
 
-    @SuppressWarnings("FloatingPointEquality") //float equal is ok because current location uses memory references to track point location
-    private static int findMatchingPointIndex(@NonNull List<Location> points, @Nullable Location current, int previousIndex) {
-        if (current == null) {
-            return -1;
+    /**
+     * Distances along the track start at the matched point, the direct distance to it is added
+     */
+    @SuppressWarnings("NumericCastThatLosesPrecision")
+    private void setDistances(@NonNull TrackData track, @NonNull UpdateContainer updateContainer) {
+        Location myLocation = updateContainer.getLocMyLocation();
+        double toPoint = (myLocation == null) ? 0.0 : track.getDistanceToPoint(pointIndex, myLocation);
+        mRemainingDistance = (int) (toPoint + track.getRemainingDistance(pointIndex));
+        setClimbs(track, toPoint);
+    }
+
+    /**
+     * Climbs are detected when the track data is built, each request only needs two binary searches
+     */
+    @SuppressWarnings("NumericCastThatLosesPrecision")
+    private void setClimbs(@NonNull TrackData track, double toPoint) {
+        int next = track.findNextClimb(pointIndex);
+        mHasNextClimb = next >= 0;
+        if (mHasNextClimb) {
+            mNextClimbStart = (int) (toPoint + track.getDistanceBetween(pointIndex, track.getClimbStartIndex(next)));
+            mNextClimbGain = (int) track.getClimbGain(next);
+            mNextClimbLength = (int) track.getClimbLength(next);
+            mNextClimbGrade = (float) track.getClimbGrade(next);
         }
 
-        //go back 5 points in case of wrong position
-        int prevIndex = previousIndex - 5;
+        int current = track.findCurrentClimb(pointIndex);
+        mHasCurrentClimb = current >= 0;
+        if (mHasCurrentClimb) {
+            int top = track.getClimbTopIndex(current);
+            mCurrentClimbRemainingDistance = (int) (toPoint + track.getDistanceBetween(pointIndex, top));
+            mCurrentClimbRemainingGain = (int) Math.max(0.0, track.getAltitude(top) - track.getAltitude(pointIndex));
+            mCurrentClimbGrade = (float) track.getClimbGrade(current);
+        }
+    }
 
-        int lastIndex = points.size() - 1;
+    /**
+     * @return null while the track of the guide target is loading in the background
+     */
+    @Nullable
+    private static TrackData getGuidedTrack(@NonNull LocusCache locusCache, @NonNull UpdateContainer updateContainer) {
+        if ((updateContainer.getGuideType() != UpdateContainer.GUIDE_TYPE_TRACK_GUIDE)
+                && (updateContainer.getGuideType() != UpdateContainer.GUIDE_TYPE_TRACK_NAVIGATION)) {
+            //no need to load a track without track navigation
+            return null;
+        }
+        return locusCache.mGuidedTrackLoader.getTrackData(updateContainer.getGuideTargetId());
+    }
 
-        if (prevIndex < 0) {
-            prevIndex = 0;
+    private ErrorStatus validateNavigationProgress(@Nullable TrackData track, @NonNull UpdateContainer updateContainer) {
+        if ((updateContainer.getGuideType() != UpdateContainer.GUIDE_TYPE_TRACK_GUIDE)
+                && (updateContainer.getGuideType() != UpdateContainer.GUIDE_TYPE_TRACK_NAVIGATION)) {
+            return ErrorStatus.NO_NAV;
         }
-        if (prevIndex > lastIndex) {
-            prevIndex = lastIndex;
+
+        if (track == null) {
+            return ErrorStatus.LOADING;
         }
 
-        for (int i = prevIndex; i <= lastIndex; i++) {
-            Location loc = points.get(i);
-            if ((current.getLongitude() == loc.getLongitude()) && (current.getLatitude() == loc.getLatitude())) {
-                return i;
-            }
+        if (!track.hasTrack()) {
+            return ErrorStatus.NO_TRK;
         }
 
-        //not found ahead, go backwards
-        for (int i = prevIndex; i >= 0; i--) {
-            Location loc = points.get(i);
-            if ((current.getLongitude() == loc.getLongitude()) && (current.getLatitude() == loc.getLatitude())) {
-                return i;
-            }
+        Location nextPoint = updateContainer.getGuideWptLoc();
+        pointIndex = track.findMatchingPointIndex(nextPoint);
+
+        if (pointIndex < 0) {
+            //point not found on track, try to find the nav point because this may align because the selected track has less points
+            Location nextNavPoint = updateContainer.getGuideNavPoint1Loc();
+            pointIndex = track.findMatchingPointIndex(nextNavPoint);
         }
 
-        return -1;
+        if (pointIndex < 0) {
+            return ErrorStatus.OFF_TRK;
+        }
+        return null;
     }
-
 }
@@ -0,0 +1,247 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.text.format.DateUtils;
+
+import androidx.annotation.NonNull;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+
+/**
+ * Ring buffer of recent update container samples with rolling aggregates which are updated in O(1) per sample.
+ * Samples are added for every update container the plugin gets, periodic updates provide one per second.
+ */
+public final class SampleHistory {
+
+    //a request right after a periodic update doesn't create a new sample
+    private static final long MIN_SAMPLE_INTERVAL = 500L;
+    private static final long AVERAGE_WINDOW = 30L * DateUtils.SECOND_IN_MILLIS;
+    private static final long MAX_WINDOW = 5L * DateUtils.MINUTE_IN_MILLIS;
+    //power of 2 which holds the max window at the highest sample rate
+    private static final int CAPACITY = Integer.highestOneBit((int) (MAX_WINDOW / MIN_SAMPLE_INTERVAL)) << 1;
+    private static final int MASK = CAPACITY - 1;
+    //without samples for a longer time nothing is known about the heart rate zone
+    private static final long HR_ZONE_MAX_GAP = 30L * DateUtils.SECOND_IN_MILLIS;
+    private static final double VSPEED_TIME_CONSTANT = 10.0 * DateUtils.SECOND_IN_MILLIS;
+    private static final int[] HR_ZONE_PERCENT = {60, 70, 80, 90};
+
+    private static final int SPEED = 0;
+    private static final int HEART_RATE = 1;
+    private static final int CADENCE = 2;
+
+    private final long[] mTimes = new long[CAPACITY];
+    //NaN if the sample has no value
+    private final double[][] mValues = new double[3][CAPACITY];
+    //sequence number of the next sample, the slot is sequence & MASK
+    private long mNext;
+
+    private final RollingAverage mAvgSpeed = new RollingAverage(SPEED, AVERAGE_WINDOW);
+    private final RollingAverage mAvgHeartRate = new RollingAverage(HEART_RATE, AVERAGE_WINDOW);
+    private final RollingAverage mAvgCadence = new RollingAverage(CADENCE, AVERAGE_WINDOW);
+    private final RollingMax mMaxHeartRate = new RollingMax(HEART_RATE, MAX_WINDOW);
+
+    private double mVerticalSpeed = Double.NaN;
+    private int mHeartRateZone;
+    private long mHeartRateZoneTime;
+    @NonNull
+    private Statistics mStatistics = new Statistics();
+
+    /**
+     * Aggregates of the history at the time of one sample, NaN if there is no data
+     */
+    public static final class Statistics {
+        public final double mAvgSpeed30s;
+        public final double mAvgHeartRate30s;
+        public final double mAvgCadence30s;
+        public final double mMaxHeartRate5min;
+        public final double mVerticalSpeedSmoothed;
+        public final int mHeartRateZone;
+        public final long mHeartRateZoneTime;
+
+        Statistics() {
+            this(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0, 0L);
+        }
+
+        Statistics(double avgSpeed30s, double avgHeartRate30s, double avgCadence30s, double maxHeartRate5min,
+                   double verticalSpeedSmoothed, int heartRateZone, long heartRateZoneTime) {
+            mAvgSpeed30s = avgSpeed30s;
+            mAvgHeartRate30s = avgHeartRate30s;
+            mAvgCadence30s = avgCadence30s;
+            mMaxHeartRate5min = maxHeartRate5min;
+            mVerticalSpeedSmoothed = verticalSpeedSmoothed;
+            mHeartRateZone = heartRateZone;
+            mHeartRateZoneTime = heartRateZoneTime;
+        }
+    }
+
+    /**
+     * @param time         receive time of the update container
+     * @param maxHeartRate to calculate the heart rate zone
+     * @return aggregates including this sample
+     */
+    @NonNull
+    public synchronized Statistics add(long time, @NonNull UpdateContainer update, int maxHeartRate) {
+        if ((mNext > 0L) && ((time - mTimes[(int) ((mNext - 1L) & MASK)]) < MIN_SAMPLE_INTERVAL)) {
+            return mStatistics;
+        }
+
+        double speed = update.getLocMyLocation().getSpeed();
+        //heart rate is 0 without sensor
+        int sensorHeartRate = update.getLocMyLocation().getSensorHeartRate();
+        double heartRate = (sensorHeartRate > 0) ? sensorHeartRate : Double.NaN;
+        double cadence = update.getLocMyLocation().getSensorCadence();
+
+        //the slot of the oldest sample gets overwritten, aggregates need to drop it first
+        long sequence = mNext;
+        mAvgSpeed.evictSequence(sequence);
+        mAvgHeartRate.evictSequence(sequence);
+        mAvgCadence.evictSequence(sequence);
+        mMaxHeartRate.evictSequence(sequence);
+
+        int slot = (int) (sequence & MASK);
+        long previousTime = (sequence > 0L) ? mTimes[(int) ((sequence - 1L) & MASK)] : time;
+        mTimes[slot] = time;
+        mValues[SPEED][slot] = speed;
+        mValues[HEART_RATE][slot] = heartRate;
+        mValues[CADENCE][slot] = cadence;
+        mNext = sequence + 1L;
+
+        mAvgSpeed.add(sequence, time);
+        mAvgHeartRate.add(sequence, time);
+        mAvgCadence.add(sequence, time);
+        mMaxHeartRate.add(sequence, time);
+
+        updateVerticalSpeed(update.getSpeedVertical(), time - previousTime);
+        updateHeartRateZone(heartRate, maxHeartRate, time - previousTime);
+
+        mStatistics = new Statistics(mAvgSpeed.get(), mAvgHeartRate.get(), mAvgCadence.get(), mMaxHeartRate.get(),
+                mVerticalSpeed, mHeartRateZone, mHeartRateZoneTime / DateUtils.SECOND_IN_MILLIS);
+        return mStatistics;
+    }
+
+    private void updateVerticalSpeed(double verticalSpeed, long timeDelta) {
+        if (Double.isNaN(mVerticalSpeed) || (timeDelta > VSPEED_TIME_CONSTANT)) {
+            mVerticalSpeed = verticalSpeed;
+        } else {
+            //exponential moving average which takes the real sample interval into account
+            double alpha = 1.0 - Math.exp(-timeDelta / VSPEED_TIME_CONSTANT);
+            mVerticalSpeed += alpha * (verticalSpeed - mVerticalSpeed);
+        }
+    }
+
+    private void updateHeartRateZone(double heartRate, int maxHeartRate, long timeDelta) {
+        int zone = 0;
+        if (!Double.isNaN(heartRate) && (maxHeartRate > 0)) {
+            double percent = (heartRate * 100.0) / maxHeartRate;
+            zone = 1;
+            while ((zone <= HR_ZONE_PERCENT.length) && (percent >= HR_ZONE_PERCENT[zone - 1])) {
+                zone++;
+            }
+        }
+        if (zone != mHeartRateZone) {
+            mHeartRateZone = zone;
+            mHeartRateZoneTime = 0L;
+        } else if (timeDelta <= HR_ZONE_MAX_GAP) {
+            //time between samples only counts if the zone is known for the whole time
+            mHeartRateZoneTime += timeDelta;
+        }
+    }
+
+    /**
+     * Sum of all values within the time window, samples leave the window from the tail
+     */
+    private final class RollingAverage {
+        private final int mColumn;
+        private final long mWindow;
+        private long mTail;
+        private double mSum;
+        private int mCount;
+
+        RollingAverage(int column, long window) {
+            mColumn = column;
+            mWindow = window;
+        }
+
+        void evictSequence(long sequence) {
+            if ((sequence - mTail) >= CAPACITY) {
+                remove();
+            }
+        }
+
+        void add(long sequence, long time) {
+            double value = mValues[mColumn][(int) (sequence & MASK)];
+            if (!Double.isNaN(value)) {
+                mSum += value;
+                mCount++;
+            }
+            while ((mTail < sequence) && ((time - mTimes[(int) (mTail & MASK)]) > mWindow)) {
+                remove();
+            }
+        }
+
+        private void remove() {
+            double value = mValues[mColumn][(int) (mTail & MASK)];
+            if (!Double.isNaN(value)) {
+                mSum -= value;
+                mCount--;
+                if (mCount == 0) {
+                    //drop accumulated rounding errors
+                    mSum = 0.0;
+                }
+            }
+            mTail++;
+        }
+
+        double get() {
+            return (mCount > 0) ? (mSum / mCount) : Double.NaN;
+        }
+    }
+
+    /**
+     * Monotonic decreasing queue of sample sequences, the head is the maximum of the time window
+     */
+    private final class RollingMax {
+        private final int mColumn;
+        private final long mWindow;
+        private final long[] mQueue = new long[CAPACITY];
+        private int mHead;
+        private int mSize;
+
+        RollingMax(int column, long window) {
+            mColumn = column;
+            mWindow = window;
+        }
+
+        void evictSequence(long sequence) {
+            if ((mSize > 0) && ((sequence - mQueue[mHead]) >= CAPACITY)) {
+                removeHead();
+            }
+        }
+
+        void add(long sequence, long time) {
+            double value = mValues[mColumn][(int) (sequence & MASK)];
+            if (!Double.isNaN(value)) {
+                //smaller values can't become the maximum anymore
+                while ((mSize > 0) && (value(mQueue[(mHead + mSize - 1) & MASK]) <= value)) {
+                    mSize--;
+                }
+                mQueue[(mHead + mSize) & MASK] = sequence;
+                mSize++;
+            }
+            while ((mSize > 0) && ((time - mTimes[(int) (mQueue[mHead] & MASK)]) > mWindow)) {
+                removeHead();
+            }
+        }
+
+        private void removeHead() {
+            mHead = (mHead + 1) & MASK;
+            mSize--;
+        }
+
+        private double value(long sequence) {
+            return mValues[mColumn][(int) (sequence & MASK)];
+        }
+
+        double get() {
+            return (mSize > 0) ? value(mQueue[mHead]) : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package falcosc.locus.addon.tasker.uc;
+
+import falcosc.locus.addon.tasker.core.ColumnGetter;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+
+/**
+ * Reads one value of the update container and puts it into the snapshot,
+ * the put overload is selected by the value type to avoid boxing of primitives.
+ */
+public interface UpdateContainerColumnGetter extends ColumnGetter<UpdateContainer> {
+}
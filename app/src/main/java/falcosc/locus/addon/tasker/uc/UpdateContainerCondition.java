@@ -0,0 +1,118 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.utils.Const;
+
+/**
+ * Threshold or crossing rule on a numeric UpdateContainer field which is used by the UpdateContainer event.
+ */
+public final class UpdateContainerCondition {
+
+    private static final char KEY_SEPARATOR = ';';
+
+    @SuppressWarnings("HardCodedStringLiteral")
+    public enum Operator {
+        LESS("<"),
+        GREATER(">"),
+        CROSS_BELOW("crosses below"),
+        CROSS_ABOVE("crosses above");
+
+        private final String mText;
+
+        Operator(String text) {
+            mText = text;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return mText;
+        }
+    }
+
+    @NonNull
+    public final String mField;
+    @NonNull
+    public final Operator mOperator;
+    public final double mThreshold;
+
+    public UpdateContainerCondition(@NonNull String field, @NonNull Operator operator, double threshold) {
+        mField = field;
+        mOperator = operator;
+        mThreshold = threshold;
+    }
+
+    @Nullable
+    public static UpdateContainerCondition fromBundle(@Nullable Bundle bundle) {
+        if (bundle == null) {
+            return null;
+        }
+        String field = bundle.getString(Const.INTENT_EXTRA_CONDITION_FIELD);
+        String operator = bundle.getString(Const.INTENT_EXTRA_CONDITION_OPERATOR);
+        if ((field == null) || (operator == null) || !bundle.containsKey(Const.INTENT_EXTRA_CONDITION_THRESHOLD)) {
+            return null;
+        }
+        try {
+            return new UpdateContainerCondition(field, Operator.valueOf(operator), bundle.getDouble(Const.INTENT_EXTRA_CONDITION_THRESHOLD));
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    @Nullable
+    public static UpdateContainerCondition fromKey(@NonNull String key) {
+        String[] parts = key.split(String.valueOf(KEY_SEPARATOR));
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new UpdateContainerCondition(parts[0], Operator.valueOf(parts[1]), Double.parseDouble(parts[2]));
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    public void writeTo(@NonNull Bundle bundle) {
+        bundle.putString(Const.INTENT_EXTRA_CONDITION_FIELD, mField);
+        bundle.putString(Const.INTENT_EXTRA_CONDITION_OPERATOR, mOperator.name());
+        bundle.putDouble(Const.INTENT_EXTRA_CONDITION_THRESHOLD, mThreshold);
+    }
+
+    @NonNull
+    public String getKey() {
+        return mField + KEY_SEPARATOR + mOperator.name() + KEY_SEPARATOR + mThreshold;
+    }
+
+    /**
+     * Threshold rules fire if the value enters the range, crossing rules need a known previous value on the other side.
+     *
+     * @param previous value of the last update or NaN if it was unknown
+     * @param current  value of this update or NaN if it is unknown
+     */
+    public boolean isFired(double previous, double current) {
+        if (Double.isNaN(current)) {
+            return false;
+        }
+        switch (mOperator) {
+            case LESS:
+                return (current < mThreshold) && !(previous < mThreshold);
+            case GREATER:
+                return (current > mThreshold) && !(previous > mThreshold);
+            case CROSS_BELOW:
+                return (current < mThreshold) && (previous >= mThreshold);
+            case CROSS_ABOVE:
+                return (current > mThreshold) && (previous <= mThreshold);
+            default:
+                return false;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return mField + " " + mOperator + " " + mThreshold;
+    }
+}
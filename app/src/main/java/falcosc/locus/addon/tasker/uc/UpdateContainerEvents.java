@@ -0,0 +1,198 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+import falcosc.locus.addon.tasker.intent.edit.UpdateContainerEventEdit;
+import falcosc.locus.addon.tasker.thridparty.TaskerPlugin;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+
+/**
+ * Evaluates the conditions of all UpdateContainer events on each periodic update and only wakes up Tasker if one fires.
+ * Conditions are registered by the editor and by each Tasker query, edited events replace their old condition.
+ * Tasker doesn't tell if an event got deleted, so conditions which are not queried for a long time expire.
+ */
+public final class UpdateContainerEvents {
+
+    private static final String TAG = "UpdateContainerEvents"; //NON-NLS
+    private static final String PREF_CONDITIONS = "UpdateContainerEvent_conditions"; //NON-NLS
+    private static final int RECENT_MESSAGE_IDS = 16;
+    //stored with the condition key: key@lastQueried
+    private static final char QUERIED_SEPARATOR = '@';
+    //Tasker queries all events of this plugin when one fires, this refreshes the conditions of live events
+    private static final long CONDITION_EXPIRATION = 30L * DateUtils.DAY_IN_MILLIS;
+    //query times only need to be stored with this precision
+    private static final long PERSIST_INTERVAL = DateUtils.DAY_IN_MILLIS;
+
+    private final Context mContext;
+    private final SharedPreferences mSharedPref;
+    private final Map<String, ConditionState> mConditions = new LinkedHashMap<>();
+    private final ArrayDeque<Integer> mRecentMessageIds = new ArrayDeque<>(RECENT_MESSAGE_IDS);
+    private volatile boolean mHasConditions;
+
+    private static final class ConditionState {
+        final UpdateContainerCondition mCondition;
+        double mPreviousValue = Double.NaN;
+        long mLastQueried;
+
+        ConditionState(UpdateContainerCondition condition, long lastQueried) {
+            mCondition = condition;
+            mLastQueried = lastQueried;
+        }
+    }
+
+    public UpdateContainerEvents(@NonNull Context context) {
+        mContext = context;
+        mSharedPref = PreferenceManager.getDefaultSharedPreferences(context);
+        long now = System.currentTimeMillis();
+        for (String entry : mSharedPref.getStringSet(PREF_CONDITIONS, new HashSet<>())) {
+            int separator = entry.lastIndexOf(QUERIED_SEPARATOR);
+            String key = (separator < 0) ? entry : entry.substring(0, separator);
+            UpdateContainerCondition condition = UpdateContainerCondition.fromKey(key);
+            if (condition != null) {
+                mConditions.put(key, new ConditionState(condition, (separator < 0) ? now : parseTime(entry.substring(separator + 1), now)));
+            }
+        }
+        mHasConditions = !mConditions.isEmpty();
+    }
+
+    private static long parseTime(@NonNull String time, long fallback) {
+        try {
+            return Long.parseLong(time);
+        } catch (NumberFormatException ignored) {
+            return fallback;
+        }
+    }
+
+    public boolean hasConditions() {
+        return mHasConditions;
+    }
+
+    /**
+     * Tasker does not tell which events exist, conditions get registered by the editor and by each query
+     */
+    public synchronized void register(@NonNull UpdateContainerCondition condition) {
+        String key = condition.getKey();
+        long now = System.currentTimeMillis();
+        ConditionState state = mConditions.get(key);
+        if (state != null) {
+            if ((now - state.mLastQueried) > PERSIST_INTERVAL) {
+                state.mLastQueried = now;
+                persist();
+            }
+            return;
+        }
+        mConditions.put(key, new ConditionState(condition, now));
+        mHasConditions = true;
+        persist();
+        Log.d(TAG, "registered condition: " + condition); //NON-NLS
+    }
+
+    /**
+     * Another event with the same condition registers it again with its next query
+     */
+    public synchronized void unregister(@NonNull UpdateContainerCondition condition) {
+        if (mConditions.remove(condition.getKey()) != null) {
+            mHasConditions = !mConditions.isEmpty();
+            persist();
+            Log.d(TAG, "unregistered condition: " + condition); //NON-NLS
+        }
+    }
+
+    private void expire(long now) {
+        boolean isChanged = false;
+        for (Iterator<ConditionState> iterator = mConditions.values().iterator(); iterator.hasNext(); ) {
+            ConditionState state = iterator.next();
+            if ((now - state.mLastQueried) > CONDITION_EXPIRATION) {
+                Log.d(TAG, "condition expired: " + state.mCondition); //NON-NLS
+                iterator.remove();
+                isChanged = true;
+            }
+        }
+        if (isChanged) {
+            mHasConditions = !mConditions.isEmpty();
+            persist();
+        }
+    }
+
+    private void persist() {
+        Set<String> entries = new HashSet<>(mConditions.size() * 2);
+        for (Map.Entry<String, ConditionState> entry : mConditions.entrySet()) {
+            entries.add(entry.getKey() + QUERIED_SEPARATOR + entry.getValue().mLastQueried);
+        }
+        mSharedPref.edit().putStringSet(PREF_CONDITIONS, entries).apply();
+    }
+
+    public synchronized void clear() {
+        mConditions.clear();
+        mHasConditions = false;
+        mSharedPref.edit().remove(PREF_CONDITIONS).apply();
+    }
+
+    public synchronized boolean isRecentMessage(int messageId) {
+        return mRecentMessageIds.contains(messageId);
+    }
+
+    public synchronized void onUpdate(@NonNull ExtUpdateContainer extUpdate, @NonNull Map<String, ExtUpdateContainerGetter> fieldMap,
+                                      @NonNull Set<String> trackRecordingKeys, @NonNull Set<String> trackGuideKeys, long now) {
+        expire(now);
+        UpdateContainer update = extUpdate.mUpdateContainer;
+        Bundle firedConditions = null;
+
+        for (Map.Entry<String, ConditionState> entry : mConditions.entrySet()) {
+            ConditionState state = entry.getValue();
+            String field = state.mCondition.mField;
+            ExtUpdateContainerGetter getter = fieldMap.get(field);
+
+            double value = Double.NaN;
+            //don't read track recording and guide fields if they are not active to skip null checks
+            boolean isAvailable = (getter != null)
+                    && (update.isTrackRecRecording() || !trackRecordingKeys.contains(field))
+                    && (update.isGuideEnabled() || !trackGuideKeys.contains(field));
+            if (isAvailable) {
+                value = getter.applyAsDouble(extUpdate);
+            }
+
+            if (state.mCondition.isFired(state.mPreviousValue, value)) {
+                if (firedConditions == null) {
+                    firedConditions = new Bundle();
+                }
+                //noinspection ConstantConditions getter exists because value is not NaN
+                firedConditions.putString(entry.getKey(), getter.apply(extUpdate));
+            }
+            state.mPreviousValue = value;
+        }
+
+        if (firedConditions != null) {
+            requestQuery(firedConditions);
+        }
+    }
+
+    private void requestQuery(@NonNull Bundle firedConditions) {
+        Intent requestQuery = new Intent(com.twofortyfouram.locale.api.Intent.ACTION_REQUEST_QUERY);
+        requestQuery.putExtra(com.twofortyfouram.locale.api.Intent.EXTRA_STRING_ACTIVITY_CLASS_NAME, UpdateContainerEventEdit.class.getName());
+        TaskerPlugin.Event.addPassThroughData(requestQuery, firedConditions);
+
+        int messageId = TaskerPlugin.Event.addPassThroughMessageID(requestQuery);
+        if (mRecentMessageIds.size() >= RECENT_MESSAGE_IDS) {
+            mRecentMessageIds.removeFirst();
+        }
+        mRecentMessageIds.addLast(messageId);
+
+        Log.d(TAG, "request query for: " + firedConditions.keySet()); //NON-NLS
+        mContext.sendBroadcast(requestQuery);
+    }
+}
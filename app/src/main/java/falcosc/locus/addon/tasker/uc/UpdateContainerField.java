@@ -2,20 +2,30 @@ package falcosc.locus.addon.tasker.uc;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.arch.core.util.Function;
+import falcosc.locus.addon.tasker.core.ColumnSnapshot;
 import falcosc.locus.addon.tasker.utils.TaskerField;
-import locus.api.android.features.periodicUpdates.UpdateContainer;
 
 public class UpdateContainerField extends TaskerField implements ExtUpdateContainerGetter {
 
-    private final Function<UpdateContainer, Object> mUpdateContainerGetter;
+    private final int mOrdinal;
+    private final UpdateContainerColumnGetter mUpdateContainerGetter;
 
-    public UpdateContainerField(@NonNull String taskerName, @Nullable String label, @NonNull Function<UpdateContainer, Object> updateContainerGetter) {
+    public UpdateContainerField(@NonNull String taskerName, @Nullable String label, int ordinal, @NonNull UpdateContainerColumnGetter updateContainerGetter) {
         super(taskerName, label);
+        mOrdinal = ordinal;
         mUpdateContainerGetter = updateContainerGetter;
     }
 
     public String apply(ExtUpdateContainer u) {
-        return String.valueOf(mUpdateContainerGetter.apply(u.mUpdateContainer));
+        return u.getSnapshot().getString(mOrdinal, mUpdateContainerGetter);
+    }
+
+    public double applyAsDouble(ExtUpdateContainer u) {
+        return u.getSnapshot().getDouble(mOrdinal, mUpdateContainerGetter);
+    }
+
+    @NonNull
+    public ColumnSnapshot.ValueType getValueType(ExtUpdateContainer u) {
+        return u.getSnapshot().getValueType(mOrdinal, mUpdateContainerGetter);
     }
 }
@@ -0,0 +1,259 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.os.Bundle;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.utils.Const;
+import falcosc.locus.addon.tasker.utils.Diagnostics;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+
+/**
+ * Field selection of an UpdateContainer request which is resolved once and reused for every request of the same field list.
+ */
+public final class UpdateContainerFieldPlan {
+
+    public static final String CHANGED_FIELDS_VAR = "uc_changed"; //NON-NLS
+    public static final String JSON_VAR = "uc_json"; //NON-NLS
+    private static final Pattern DEADBAND_SEPARATOR = Pattern.compile("[,;\\s]+"); //NON-NLS
+
+    private final String[] mFieldList;
+    private final boolean mChangedOnly;
+    private final boolean mJsonOutput;
+    @Nullable
+    private final String mDeadbands;
+    @Nullable
+    private final String mExpressions;
+
+    //fields ordered by group: common, track recording, guide, navigation progress
+    private final String[] mFieldNames;
+    private final String[] mVarNames;
+    private final ExtUpdateContainerGetter[] mGetters;
+    private final int mTrackRecordingStart;
+    private final int mTrackGuideStart;
+    private final int mNavigationProgressStart;
+
+    //last values which got returned in changed only mode
+    private final String[] mLastValues;
+    private final double[] mLastNumbers;
+    private final double[] mFieldDeadbands;
+    private final StringBuilder mChangedFields = new StringBuilder();
+    private final JsonFieldWriter mJsonWriter = new JsonFieldWriter();
+
+    public UpdateContainerFieldPlan(@NonNull String[] fieldList, @NonNull Bundle apiExtraBundle,
+                                    @NonNull Map<String, ExtUpdateContainerGetter> fieldMap,
+                                    @NonNull Set<String> trackRecordingKeys, @NonNull Set<String> trackGuideKeys,
+                                    @NonNull Set<String> navigationProgressKeys) {
+        mFieldList = fieldList.clone();
+        mChangedOnly = apiExtraBundle.getBoolean(Const.INTENT_EXTRA_CHANGED_ONLY, false);
+        mJsonOutput = apiExtraBundle.getBoolean(Const.INTENT_EXTRA_JSON_OUTPUT, false);
+        mDeadbands = apiExtraBundle.getString(Const.INTENT_EXTRA_DEADBANDS);
+        mExpressions = apiExtraBundle.getString(Const.INTENT_EXTRA_EXPRESSIONS);
+
+        List<String> common = new ArrayList<>();
+        List<String> recording = new ArrayList<>();
+        List<String> guide = new ArrayList<>();
+        List<String> navigationProgress = new ArrayList<>();
+        for (String field : fieldList) {
+            if (!fieldMap.containsKey(field)) {
+                //Don't need to report unknown fields, illegal intents creates exceptions
+                continue;
+            }
+            if (trackRecordingKeys.contains(field)) {
+                recording.add(field);
+            } else if (trackGuideKeys.contains(field)) {
+                guide.add(field);
+            } else if (navigationProgressKeys.contains(field)) {
+                navigationProgress.add(field);
+            } else {
+                common.add(field);
+            }
+        }
+
+        //expressions check the availability of their fields on their own
+        Map<String, ExtUpdateContainerGetter> expressionFields = new HashMap<>();
+        for (ExpressionField expressionField : ExpressionField.parse(mExpressions, fieldMap, trackRecordingKeys, trackGuideKeys)) {
+            common.add(expressionField.mTaskerName);
+            expressionFields.put(expressionField.mTaskerName, expressionField);
+        }
+
+        mTrackRecordingStart = common.size();
+        mTrackGuideStart = mTrackRecordingStart + recording.size();
+        mNavigationProgressStart = mTrackGuideStart + guide.size();
+
+        List<String> orderedFields = new ArrayList<>(fieldList.length);
+        orderedFields.addAll(common);
+        orderedFields.addAll(recording);
+        orderedFields.addAll(guide);
+        orderedFields.addAll(navigationProgress);
+
+        int size = orderedFields.size();
+        mFieldNames = orderedFields.toArray(new String[0]);
+        mVarNames = new String[size];
+        mGetters = new ExtUpdateContainerGetter[size];
+        for (int i = 0; i < size; i++) {
+            mVarNames[i] = "%" + mFieldNames[i];
+            ExtUpdateContainerGetter getter = fieldMap.get(mFieldNames[i]);
+            mGetters[i] = (getter == null) ? expressionFields.get(mFieldNames[i]) : getter;
+        }
+
+        mLastValues = new String[size];
+        mLastNumbers = new double[size];
+        mFieldDeadbands = new double[size];
+        Map<String, Double> deadbands = parseDeadbands(mDeadbands);
+        for (int i = 0; i < size; i++) {
+            Double deadband = deadbands.get(mFieldNames[i]);
+            mFieldDeadbands[i] = (deadband == null) ? Double.NaN : deadband;
+        }
+    }
+
+    /**
+     * @param deadbands list of field=value pairs
+     * @return deadband by field name
+     * @throws NumberFormatException if a pair is invalid
+     */
+    @NonNull
+    public static Map<String, Double> parseDeadbands(@Nullable String deadbands) {
+        Map<String, Double> result = new HashMap<>();
+        if (StringUtils.isBlank(deadbands)) {
+            return result;
+        }
+        for (String pair : DEADBAND_SEPARATOR.split(deadbands.trim())) {
+            int separator = pair.indexOf('=');
+            if (separator < 1) {
+                throw new NumberFormatException(pair);
+            }
+            result.put(pair.substring(0, separator), Math.abs(Double.parseDouble(pair.substring(separator + 1))));
+        }
+        return result;
+    }
+
+    public boolean matches(@NonNull String[] fieldList, @NonNull Bundle apiExtraBundle) {
+        return Arrays.equals(mFieldList, fieldList)
+                && (mChangedOnly == apiExtraBundle.getBoolean(Const.INTENT_EXTRA_CHANGED_ONLY, false))
+                && (mJsonOutput == apiExtraBundle.getBoolean(Const.INTENT_EXTRA_JSON_OUTPUT, false))
+                && StringUtils.equals(mDeadbands, apiExtraBundle.getString(Const.INTENT_EXTRA_DEADBANDS))
+                && StringUtils.equals(mExpressions, apiExtraBundle.getString(Const.INTENT_EXTRA_EXPRESSIONS));
+    }
+
+    public void addVariables(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle) {
+        UpdateContainer update = extUpdate.mUpdateContainer;
+        //skip track recording and guide fields if they are not active to skip null checks
+        boolean isRecording = update.isTrackRecRecording();
+        boolean isGuiding = update.isGuideEnabled();
+
+        //includes lazy fields like the navigation progress which have their own stage too
+        long startTime = Diagnostics.start();
+        if (mJsonOutput) {
+            addJsonVariable(extUpdate, varsBundle, isRecording, isGuiding);
+        } else if (mChangedOnly) {
+            addChangedVariables(extUpdate, varsBundle, isRecording, isGuiding);
+        } else {
+            addAllVariables(extUpdate, varsBundle, isRecording, isGuiding);
+        }
+        Diagnostics.record(Diagnostics.BUNDLE_BUILD, startTime);
+    }
+
+    /**
+     * One string instead of a bundle entry per field, the buffer is shared by all requests of this plan
+     */
+    private synchronized void addJsonVariable(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle,
+                                              boolean isRecording, boolean isGuiding) {
+        mJsonWriter.begin();
+        if (mChangedOnly) {
+            addChangedVariables(extUpdate, varsBundle, isRecording, isGuiding);
+        } else {
+            addAllVariables(extUpdate, varsBundle, isRecording, isGuiding);
+        }
+        varsBundle.putString("%" + JSON_VAR, mJsonWriter.end());
+    }
+
+    private void addAllVariables(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle,
+                                 boolean isRecording, boolean isGuiding) {
+        addVariables(extUpdate, varsBundle, 0, mTrackRecordingStart);
+        if (isRecording) {
+            addVariables(extUpdate, varsBundle, mTrackRecordingStart, mTrackGuideStart);
+        }
+        if (isGuiding) {
+            addVariables(extUpdate, varsBundle, mTrackGuideStart, mNavigationProgressStart);
+        }
+        addVariables(extUpdate, varsBundle, mNavigationProgressStart, mGetters.length);
+    }
+
+    private void addVariables(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle, int start, int end) {
+        for (int i = start; i < end; i++) {
+            putVariable(extUpdate, varsBundle, i, mGetters[i].apply(extUpdate));
+        }
+    }
+
+    private void putVariable(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle, int index, @NonNull String value) {
+        if (mJsonOutput) {
+            mJsonWriter.field(mFieldNames[index], value, mGetters[index].getValueType(extUpdate));
+        } else {
+            varsBundle.putString(mVarNames[index], value);
+        }
+    }
+
+    private synchronized void addChangedVariables(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle,
+                                                  boolean isRecording, boolean isGuiding) {
+        mChangedFields.setLength(0);
+
+        addChangedVariables(extUpdate, varsBundle, 0, mTrackRecordingStart, true);
+        addChangedVariables(extUpdate, varsBundle, mTrackRecordingStart, mTrackGuideStart, isRecording);
+        addChangedVariables(extUpdate, varsBundle, mTrackGuideStart, mNavigationProgressStart, isGuiding);
+        addChangedVariables(extUpdate, varsBundle, mNavigationProgressStart, mGetters.length, true);
+
+        varsBundle.putString("%" + CHANGED_FIELDS_VAR, mChangedFields.toString());
+    }
+
+    private void addChangedVariables(@NonNull ExtUpdateContainer extUpdate, @NonNull Bundle varsBundle,
+                                     int start, int end, boolean isActive) {
+        if (!isActive) {
+            //forget values of inactive groups to report them again after activation
+            Arrays.fill(mLastValues, start, end, null);
+            return;
+        }
+
+        for (int i = start; i < end; i++) {
+            String value = mGetters[i].apply(extUpdate);
+            //only fields with deadband need to be compared as number
+            double number = Double.isNaN(mFieldDeadbands[i]) ? Double.NaN : mGetters[i].applyAsDouble(extUpdate);
+            if (isChanged(i, value, number)) {
+                putVariable(extUpdate, varsBundle, i, value);
+                if (mChangedFields.length() > 0) {
+                    mChangedFields.append(',');
+                }
+                mChangedFields.append(mFieldNames[i]);
+            }
+        }
+    }
+
+    private boolean isChanged(int index, @NonNull String value, double number) {
+        String lastValue = mLastValues[index];
+        boolean changed;
+        if (lastValue == null) {
+            changed = true;
+        } else if (Double.isNaN(number) || Double.isNaN(mLastNumbers[index])) {
+            changed = !lastValue.equals(value);
+        } else {
+            //compare against last returned value to detect slow drifts
+            changed = Math.abs(number - mLastNumbers[index]) >= mFieldDeadbands[index];
+        }
+
+        if (changed) {
+            mLastValues[index] = value;
+            mLastNumbers[index] = number;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,102 @@
+package falcosc.locus.addon.tasker.uc;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.utils.PluginExecutors;
+import falcosc.locus.addon.tasker.utils.TaskerField;
+import locus.api.android.objects.LocusVersion;
+
+/**
+ * All update container fields with their Locus labels and the key sets of the field groups.
+ * Immutable after creation, only needed by update container actions and editors.
+ */
+public final class UpdateContainerFieldRegistry {
+
+    private static final String TAG = "UCFieldRegistry"; //NON-NLS
+
+    public final Set<String> mTrackRecordingKeys;
+    public final Set<String> mTrackGuideKeys;
+    public final Set<String> mLocationProgressKeys;
+    public final Map<String, ExtUpdateContainerGetter> mExtUpdateContainerFieldMap;
+    public final List<TaskerField> mUpdateContainerFields;
+    //number of primitive columns of each update container snapshot
+    public final int mColumnCount;
+
+    @SuppressWarnings("HardCodedStringLiteral")
+    public UpdateContainerFieldRegistry(@NonNull Context context, @Nullable LocusVersion locusVersion) {
+        long startTime = SystemClock.elapsedRealtime();
+
+        Resources locusResources = null;
+        if (locusVersion != null) {
+            try {
+                locusResources = context.getPackageManager().getResourcesForApplication(locusVersion.getPackageName());
+                Log.d(TAG, "Found Locus resources");
+            } catch (Exception e) {
+                Log.d(TAG, "Missing Locus resources", e);
+            }
+        }
+
+        LocusLabelCache labelCache = new LocusLabelCache(context, locusResources, locusVersion);
+        UpdateContainerFieldFactory factory = new UpdateContainerFieldFactory(labelCache);
+
+        ArrayList<TaskerField> fields = factory.createUpdateContainerFields();
+        fields.addAll(factory.createMapFields());
+
+        ArrayList<TaskerField> trackRecStatsFields = factory.createTrackRecStatsFields();
+        mTrackRecordingKeys = getLocusFieldKeys(trackRecStatsFields);
+        fields.addAll(trackRecStatsFields);
+
+        ArrayList<TaskerField> guideFields = factory.createGuideFields();
+        mTrackGuideKeys = getLocusFieldKeys(guideFields);
+        fields.addAll(guideFields);
+
+        ArrayList<TaskerField> navigationProgressFields = UpdateContainerFieldFactory.createNavigationProgressFields();
+        mLocationProgressKeys = getLocusFieldKeys(navigationProgressFields);
+        fields.addAll(navigationProgressFields);
+
+        fields.addAll(UpdateContainerFieldFactory.createStatisticsFields());
+
+        mUpdateContainerFields = Collections.unmodifiableList(fields);
+        mExtUpdateContainerFieldMap = createExtUpdateContainerFieldMap(fields);
+        mColumnCount = factory.getColumnCount();
+
+        Log.d(TAG, "Locus fields created: " + fields.size() + " in "
+                + (SystemClock.elapsedRealtime() - startTime) + "ms, labels from cache: " + labelCache.isLoaded());
+        Log.d(TAG, "Locus Field keys mapped - recording keys: " + mTrackRecordingKeys.size());
+        Log.d(TAG, "Locus Field keys mapped - guiding keys: " + mTrackGuideKeys.size());
+        PluginExecutors.getBackgroundExecutor().execute(labelCache::save);
+    }
+
+    @NonNull
+    private static Map<String, ExtUpdateContainerGetter> createExtUpdateContainerFieldMap(@NonNull List<TaskerField> fields) {
+        Map<String, ExtUpdateContainerGetter> updateContainerFieldMap = new HashMap<>();
+        for (TaskerField field : fields) {
+            //do cast only once
+            updateContainerFieldMap.put(field.mTaskerName, (ExtUpdateContainerGetter) field);
+        }
+
+        return updateContainerFieldMap;
+    }
+
+    @NonNull
+    private static Set<String> getLocusFieldKeys(@NonNull List<TaskerField> fields) {
+        Set<String> keys = new HashSet<>();
+        for (TaskerField field : fields) {
+            keys.add(field.mTaskerName);
+        }
+        return keys;
+    }
+}
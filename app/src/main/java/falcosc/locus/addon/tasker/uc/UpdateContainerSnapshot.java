@@ -0,0 +1,15 @@
+package falcosc.locus.addon.tasker.uc;
+
+import androidx.annotation.NonNull;
+import falcosc.locus.addon.tasker.core.ColumnSnapshot;
+import locus.api.android.features.periodicUpdates.UpdateContainer;
+
+/**
+ * Primitive columns of all {@link UpdateContainerField} values of one update container indexed by field ordinal.
+ */
+public final class UpdateContainerSnapshot extends ColumnSnapshot<UpdateContainer> {
+
+    UpdateContainerSnapshot(@NonNull UpdateContainer updateContainer, int columnCount) {
+        super(updateContainer, columnCount);
+    }
+}
@@ -13,6 +13,33 @@ public final class Const {
 
     public static final String INTENT_EXTRA_FIELD_JSON = "INTENT_EXTRA_FIELD_JSON";
 
+    /**
+     * only return fields which changed since the last request of the same field list
+     */
+    public static final String INTENT_EXTRA_CHANGED_ONLY = "INTENT_EXTRA_CHANGED_ONLY";
+
+    /**
+     * field=value list of changes which are ignored in changed only mode
+     */
+    public static final String INTENT_EXTRA_DEADBANDS = "INTENT_EXTRA_DEADBANDS";
+
+    /**
+     * return the fields as one JSON variable instead of one variable per field
+     */
+    public static final String INTENT_EXTRA_JSON_OUTPUT = "INTENT_EXTRA_JSON_OUTPUT";
+
+    /**
+     * name=expression list of calculated fields
+     */
+    public static final String INTENT_EXTRA_EXPRESSIONS = "INTENT_EXTRA_EXPRESSIONS";
+
+    /**
+     * field, operator and threshold of an UpdateContainer event condition
+     */
+    public static final String INTENT_EXTRA_CONDITION_FIELD = "INTENT_EXTRA_CONDITION_FIELD";
+    public static final String INTENT_EXTRA_CONDITION_OPERATOR = "INTENT_EXTRA_CONDITION_OPERATOR";
+    public static final String INTENT_EXTRA_CONDITION_THRESHOLD = "INTENT_EXTRA_CONDITION_THRESHOLD";
+
     public static final String INTEND_EXTRA_ADDON_ACTION_TYPE = "LOCUS_ADDON_ACTION_TYPE";
 
     public static final String INTENT_ACTION_TASK_EXTRA_KEY = "tasks";
@@ -0,0 +1,160 @@
+package falcosc.locus.addon.tasker.utils;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import falcosc.locus.addon.tasker.intent.LocusActionType;
+
+/**
+ * Latency histograms of the plugin stages. The stage set is fixed, so recording doesn't need any lock.
+ */
+@SuppressWarnings("HardCodedStringLiteral")
+public final class Diagnostics {
+
+    public static final String WORKER_QUEUE_WAIT = "worker_queue_wait";
+    public static final String IPC_UPDATE_CONTAINER = "ipc_update_container";
+    public static final String NAVIGATION_PROGRESS = "navigation_progress";
+    public static final String TRACK_LOAD = "track_load";
+    public static final String BUNDLE_BUILD = "bundle_build";
+    public static final String REMINDER_CHECK = "reminder_check";
+    private static final String ACTION_PREFIX = "action_";
+    private static final String VAR_PREFIX = "%diag_";
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = createHistograms();
+
+    private Diagnostics() {
+    }
+
+    @NonNull
+    private static Map<String, LatencyHistogram> createHistograms() {
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        for (LocusActionType actionType : LocusActionType.values()) {
+            histograms.put(actionStage(actionType.name()), new LatencyHistogram());
+        }
+        histograms.put(WORKER_QUEUE_WAIT, new LatencyHistogram());
+        histograms.put(IPC_UPDATE_CONTAINER, new LatencyHistogram());
+        histograms.put(NAVIGATION_PROGRESS, new LatencyHistogram());
+        histograms.put(TRACK_LOAD, new LatencyHistogram());
+        histograms.put(BUNDLE_BUILD, new LatencyHistogram());
+        histograms.put(REMINDER_CHECK, new LatencyHistogram());
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    @NonNull
+    public static String actionStage(@NonNull String actionType) {
+        return ACTION_PREFIX + actionType.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return start time for {@link #record(String, long)}
+     */
+    public static long start() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Unknown stages are ignored
+     */
+    public static void record(@NonNull String stage, long startNanos) {
+        LatencyHistogram histogram = HISTOGRAMS.get(stage);
+        if (histogram != null) {
+            histogram.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        }
+    }
+
+    @Nullable
+    public static LatencyHistogram getHistogram(@NonNull String stage) {
+        return HISTOGRAMS.get(stage);
+    }
+
+    @NonNull
+    public static List<TaskerField> getStageFields() {
+        List<TaskerField> fields = new ArrayList<>(HISTOGRAMS.size());
+        for (String stage : HISTOGRAMS.keySet()) {
+            fields.add(new TaskerField(stage, null));
+        }
+        return fields;
+    }
+
+    /**
+     * @return descriptions of the variables which {@link #addVariables(Set, Bundle)} adds for one stage
+     */
+    @NonNull
+    public static String[] getVarDesc(@NonNull String stage) {
+        String var = VAR_PREFIX + stage;
+        return new String[]{
+                var + "_count\n" + stage + " count\n",
+                var + "_p50\n" + stage + " p50 ms\n",
+                var + "_p95\n" + stage + " p95 ms\n",
+                var + "_p99\n" + stage + " p99 ms\n",
+                var + "_max\n" + stage + " max ms\n"
+        };
+    }
+
+    public static void addVariables(@NonNull Set<String> stages, @NonNull Bundle varsBundle) {
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            if (!stages.contains(entry.getKey())) {
+                continue;
+            }
+            String var = VAR_PREFIX + entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            varsBundle.putString(var + "_count", Long.toString(histogram.getCount()));
+            varsBundle.putString(var + "_p50", format(histogram.getPercentileMillis(50.0)));
+            varsBundle.putString(var + "_p95", format(histogram.getPercentileMillis(95.0)));
+            varsBundle.putString(var + "_p99", format(histogram.getPercentileMillis(99.0)));
+            varsBundle.putString(var + "_max", format(histogram.getMaxMillis()));
+        }
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * @return table of all stages with values for sharing
+     */
+    @NonNull
+    public static String export() {
+        StringBuilder report = new StringBuilder(1024);
+        report.append("stage;count;mean ms;p50 ms;p95 ms;p99 ms;max ms\n");
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0L) {
+                continue;
+            }
+            report.append(entry.getKey()).append(';')
+                    .append(histogram.getCount()).append(';')
+                    .append(format(histogram.getMeanMillis())).append(';')
+                    .append(format(histogram.getPercentileMillis(50.0))).append(';')
+                    .append(format(histogram.getPercentileMillis(95.0))).append(';')
+                    .append(format(histogram.getPercentileMillis(99.0))).append(';')
+                    .append(format(histogram.getMaxMillis())).append('\n');
+        }
+        report.append(PluginExecutors.getWorkerExecutor()).append('\n');
+        LocusCache locusCache = LocusCache.getInstanceNullable();
+        if (locusCache != null) {
+            report.append("update_container hits=").append(locusCache.getUpdateContainerHits())
+                    .append(" misses=").append(locusCache.getUpdateContainerMisses())
+                    .append(" coalesced=").append(locusCache.getUpdateContainerCoalescedWaits()).append('\n');
+            report.append(locusCache.mGuidedTrackLoader.getTrackDataCache()).append('\n');
+        }
+        return report.toString();
+    }
+
+    @NonNull
+    private static String format(double millis) {
+        return Double.isNaN(millis) ? "" : String.format(Locale.ROOT, "%.1f", millis);
+    }
+}
@@ -0,0 +1,103 @@
+package falcosc.locus.addon.tasker.utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Bounded thread pool which measures how long tasks wait in the queue and how deep the queue gets.
+ * Rejects tasks if the queue is full, the caller has to report that.
+ */
+public final class InstrumentedExecutor extends ThreadPoolExecutor {
+
+    private static final String TAG = "InstrumentedExecutor"; //NON-NLS
+    //waits above this are logged, they are close to the broadcast timeout of Tasker
+    private static final long SLOW_WAIT_MS = 1000L;
+
+    private final String mName;
+    @Nullable
+    private final LatencyHistogram mWaitHistogram;
+    private final AtomicLong mSubmitted = new AtomicLong();
+    private final AtomicLong mTotalWaitMs = new AtomicLong();
+    private final AtomicLong mMaxWaitMs = new AtomicLong();
+    private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+
+    InstrumentedExecutor(@NonNull String name, int threads, int queueCapacity, @Nullable LatencyHistogram waitHistogram) {
+        super(threads, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                new PluginExecutors.NamedThreadFactory(name));
+        mName = name;
+        mWaitHistogram = waitHistogram;
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        super.execute(new TimedTask(command));
+        mSubmitted.incrementAndGet();
+        updateMax(mMaxQueueDepth, getQueue().size());
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof TimedTask) {
+            long waitNanos = SystemClock.elapsedRealtimeNanos() - ((TimedTask) runnable).mEnqueueTime;
+            if (mWaitHistogram != null) {
+                mWaitHistogram.record(waitNanos);
+            }
+            long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+            mTotalWaitMs.addAndGet(waitMs);
+            updateMax(mMaxWaitMs, waitMs);
+            if (waitMs > SLOW_WAIT_MS) {
+                Log.w(TAG, mName + " task waited " + waitMs + "ms, queue depth " + getQueue().size()); //NON-NLS
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        long submitted = mSubmitted.get();
+        return mName + " submitted=" + submitted //NON-NLS
+                + " queue=" + getQueue().size() //NON-NLS
+                + " maxQueue=" + mMaxQueueDepth.get() //NON-NLS
+                + " avgWaitMs=" + ((submitted > 0L) ? (mTotalWaitMs.get() / submitted) : 0L) //NON-NLS
+                + " maxWaitMs=" + mMaxWaitMs.get(); //NON-NLS
+    }
+
+    private static void updateMax(@NonNull AtomicLong max, long value) {
+        long current = max.get();
+        while ((value > current) && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private static void updateMax(@NonNull AtomicInteger max, int value) {
+        int current = max.get();
+        while ((value > current) && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private static final class TimedTask implements Runnable {
+        private final Runnable mTask;
+        final long mEnqueueTime = SystemClock.elapsedRealtimeNanos();
+
+        TimedTask(@NonNull Runnable task) {
+            mTask = task;
+        }
+
+        @Override
+        public void run() {
+            mTask.run();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package falcosc.locus.addon.tasker.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed logarithmic buckets in microseconds.
+ * Each power of two is split into 4 buckets, so percentiles are at most 25% above the real value.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //2^36 microseconds are about 19 hours, longer values end in the last bucket
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKET_COUNT = ((MAX_EXPONENT - 1) << SUB_BUCKET_BITS) + SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalMicros = new AtomicLong();
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    public void record(long durationNanos) {
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        mCounts.incrementAndGet(bucketIndex(micros));
+        mCount.incrementAndGet();
+        mTotalMicros.addAndGet(micros);
+        long max = mMaxMicros.get();
+        while ((micros > max) && !mMaxMicros.compareAndSet(max, micros)) {
+            max = mMaxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public double getMeanMillis() {
+        long count = mCount.get();
+        return (count > 0L) ? (mTotalMicros.get() / (count * 1000.0)) : Double.NaN;
+    }
+
+    public double getMaxMillis() {
+        return (mCount.get() > 0L) ? (mMaxMicros.get() / 1000.0) : Double.NaN;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket which contains the percentile or NaN without values
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0L;
+        //copy first, concurrent records must not move the target
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+        if (total == 0L) {
+            return Double.NaN;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil((percentile / 100.0) * total));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(bucketUpperBound(i), mMaxMicros.get()) / 1000.0;
+            }
+        }
+        return mMaxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Not atomic, records which run at the same time may survive partially
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0L);
+        }
+        mCount.set(0L);
+        mTotalMicros.set(0L);
+        mMaxMicros.set(0L);
+    }
+
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((micros >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return ((exponent - 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index >> SUB_BUCKET_BITS) + 1;
+        int subBucket = index & (SUB_BUCKETS - 1);
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1L;
+    }
+}
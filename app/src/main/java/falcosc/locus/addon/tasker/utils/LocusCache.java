@@ -2,25 +2,33 @@ package falcosc.locus.addon.tasker.utils;
 
 import android.app.Application;
 import android.content.Context;
-import android.content.res.Resources;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.text.format.DateUtils;
 import android.util.Log;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.preference.PreferenceManager;
 import falcosc.locus.addon.tasker.BuildConfig;
 import falcosc.locus.addon.tasker.RequiredDataMissingException;
+import falcosc.locus.addon.tasker.core.TrackData;
+import falcosc.locus.addon.tasker.core.TrackDataStore;
+import falcosc.locus.addon.tasker.intent.receiver.PeriodicUpdateReceiver;
 import falcosc.locus.addon.tasker.reminder.VersionSelectReminder;
 import falcosc.locus.addon.tasker.uc.ExtUpdateContainer;
-import falcosc.locus.addon.tasker.uc.ExtUpdateContainerGetter;
-import falcosc.locus.addon.tasker.uc.NavigationProgress;
-import falcosc.locus.addon.tasker.uc.UpdateContainerFieldFactory;
+import falcosc.locus.addon.tasker.uc.GuidedTrackLoader;
+import falcosc.locus.addon.tasker.uc.SampleHistory;
+import falcosc.locus.addon.tasker.uc.UpdateContainerCondition;
+import falcosc.locus.addon.tasker.uc.UpdateContainerEvents;
+import falcosc.locus.addon.tasker.uc.UpdateContainerFieldPlan;
+import falcosc.locus.addon.tasker.uc.UpdateContainerFieldRegistry;
 import locus.api.android.ActionBasics;
 import locus.api.android.features.periodicUpdates.UpdateContainer;
 import locus.api.android.objects.LocusVersion;
@@ -32,8 +40,21 @@ public final class LocusCache {
     private static final String TAG = "LocusCache"; //NON-NLS
     private static final Object mSyncObj = new Object();
     private static final long UPDATE_CONTAINER_EXPIRATION = 950L;
-
-    private static LocusCache mInstance;
+    //Locus sends periodic updates every second, older updates means that Locus stopped sending
+    private static final long PERIODIC_UPDATE_MAX_AGE = 2500L;
+    private static final long PERIODIC_UPDATE_DEFAULT_IDLE_TIMEOUT = 60L;
+    private static final int FIELD_PLAN_CACHE_SIZE = 32;
+    private static final String PREF_PERIODIC_UPDATES = "UpdateContainer_periodicUpdates"; //NON-NLS
+    private static final String PREF_PERIODIC_UPDATES_IDLE_TIMEOUT = "UpdateContainer_periodicUpdates_idleTimeout"; //NON-NLS
+    private static final String PREF_MAX_HEART_RATE = "UpdateContainer_maxHeartRate"; //NON-NLS
+    private static final int DEFAULT_MAX_HEART_RATE = 190;
+    private static final String TRACK_DATA_DIR = "track_data"; //NON-NLS
+    private static final long TRACK_DATA_MAX_BYTES = 64L * 1024L * 1024L;
+    private static final String PREF_TRACK_MATCH_TOLERANCE = "UpdateContainer_trackMatchTolerance"; //NON-NLS
+    private static final String PREF_CLIMB_MIN_GAIN = "UpdateContainer_climbMinGain"; //NON-NLS
+    private static final String PREF_CLIMB_MIN_GRADE = "UpdateContainer_climbMinGrade"; //NON-NLS
+
+    private static volatile LocusCache mInstance;
 
     private final Application mApplicationContext;
 
@@ -43,24 +64,39 @@ public final class LocusCache {
         return mApplicationContext;
     }
 
-    public final Set<String> mTrackRecordingKeys;
-    public final Set<String> mTrackGuideKeys;
-    public final Set<String> mLocationProgressKeys;
-    public final Map<String, ExtUpdateContainerGetter> mExtUpdateContainerFieldMap;
-    public final ArrayList<TaskerField> mUpdateContainerFields;
-    public LocusVersion mLocusVersion;
-
-    //selected track fields
+    //parts are created on first use, so an action only pays for the parts it needs
     @Nullable
-    public NavigationProgress.TrackData mLastSelectedTrack;
+    private volatile UpdateContainerFieldRegistry mFieldRegistry;
+    private final Object mFieldRegistryLock = new Object();
+    public volatile LocusVersion mLocusVersion;
 
-    //empty update container to avoid null checks because result is normally never null
-    @SuppressWarnings("InstanceVariableOfConcreteClass")
-    private ExtUpdateContainer mExtUpdateContainer = new ExtUpdateContainer(new UpdateContainer());
-    private long mUpdateContainerExpiration;
+    //field plans of the recently used field lists, there are only a few distinct lists so a linear search is fast enough
+    private volatile UpdateContainerFieldPlan[] mFieldPlans = new UpdateContainerFieldPlan[0];
+
+    //selected track fields
+    public final TrackDataStore mTrackDataStore;
+    public final GuidedTrackLoader mGuidedTrackLoader;
+
+    private final AtomicReference<CachedUpdateContainer> mCachedUpdateContainer = new AtomicReference<>();
+    private final SampleHistory mSampleHistory = new SampleHistory();
+    //running IPC request, concurrent requests wait for it instead of starting their own
+    private final AtomicReference<FutureTask<ExtUpdateContainer>> mUpdateContainerRefresh = new AtomicReference<>();
+    private final AtomicLong mUpdateContainerHits = new AtomicLong();
+    private final AtomicLong mUpdateContainerMisses = new AtomicLong();
+    private final AtomicLong mUpdateContainerCoalescedWaits = new AtomicLong();
+
+    //periodic updates
+    private final SharedPreferences mSharedPref;
+    private volatile long mPeriodicUpdatesSubscribeTime;
+    private volatile long mLastUpdateContainerRequest;
+    private final UpdateContainerEvents mUpdateContainerEvents;
 
     //reminders
-    public final VersionSelectReminder versionSelectReminder;
+    @Nullable
+    private volatile VersionSelectReminder mVersionSelectReminder;
+    @Nullable
+    private volatile LocusInfoCache mLocusInfoCache;
+    private final Object mReminderLock = new Object();
 
     @SuppressWarnings("HardCodedStringLiteral")
     private LocusCache(Application context) {
@@ -68,43 +104,61 @@ public final class LocusCache {
         Log.d(TAG, BuildConfig.VERSION_NAME);
 
         mApplicationContext = context;
+        mSharedPref = PreferenceManager.getDefaultSharedPreferences(context);
 
         mLocusVersion = LocusUtils.INSTANCE.getActiveVersion(context, VersionCode.UPDATE_01);
         Log.d(TAG, "Locus version: " + mLocusVersion);
 
-        Resources locusRes = null;
-        try {
-            locusRes = context.getPackageManager().getResourcesForApplication(mLocusVersion.getPackageName());
-            Log.d(TAG, "Found Locus resources");
-        } catch (Exception e) {
-            Log.d(TAG, "Missing Locus resources", e);
-        }
-        Resources locusResources = locusRes;
-
-        UpdateContainerFieldFactory factory = new UpdateContainerFieldFactory(locusResources, mLocusVersion);
-
-        mUpdateContainerFields = factory.createUpdateContainerFields();
-        mUpdateContainerFields.addAll(factory.createMapFields());
-
-        ArrayList<TaskerField> trackRecStatsFields = factory.createTrackRecStatsFields();
-        mTrackRecordingKeys = getLocusFieldKeys(trackRecStatsFields);
-        mUpdateContainerFields.addAll(trackRecStatsFields);
-
-        ArrayList<TaskerField> guideFields = factory.createGuideFields();
-        mTrackGuideKeys = getLocusFieldKeys(guideFields);
-        mUpdateContainerFields.addAll(guideFields);
-
-        ArrayList<TaskerField> navigationProgressFields = UpdateContainerFieldFactory.createNavigationProgressFields();
-        mLocationProgressKeys = getLocusFieldKeys(navigationProgressFields);
-        mUpdateContainerFields.addAll(navigationProgressFields);
+        mUpdateContainerEvents = new UpdateContainerEvents(mApplicationContext);
+        mTrackDataStore = new TrackDataStore(new File(context.getCacheDir(), TRACK_DATA_DIR), TRACK_DATA_MAX_BYTES);
+        mGuidedTrackLoader = new GuidedTrackLoader(this);
+    }
 
-        mExtUpdateContainerFieldMap = createExtUpdateContainerFieldMap();
+    @NonNull
+    public UpdateContainerFieldRegistry getFieldRegistry() {
+        UpdateContainerFieldRegistry registry = mFieldRegistry;
+        if (registry == null) {
+            synchronized (mFieldRegistryLock) {
+                registry = mFieldRegistry;
+                if (registry == null) {
+                    registry = new UpdateContainerFieldRegistry(mApplicationContext, mLocusVersion);
+                    mFieldRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
 
-        Log.d(TAG, "Locus fields created: " + mUpdateContainerFields.size());
-        Log.d(TAG, "Locus Field keys mapped - recording keys: " + mTrackRecordingKeys.size());
-        Log.d(TAG, "Locus Field keys mapped - guiding keys: " + mTrackGuideKeys.size());
+    @NonNull
+    public LocusInfoCache getLocusInfoCache() {
+        LocusInfoCache locusInfoCache = mLocusInfoCache;
+        if (locusInfoCache == null) {
+            synchronized (mReminderLock) {
+                locusInfoCache = mLocusInfoCache;
+                if (locusInfoCache == null) {
+                    locusInfoCache = new LocusInfoCache(mApplicationContext);
+                    locusInfoCache.registerPackageChangeReceiver();
+                    mLocusInfoCache = locusInfoCache;
+                }
+            }
+        }
+        return locusInfoCache;
+    }
 
-        versionSelectReminder = new VersionSelectReminder(mApplicationContext);
+    @NonNull
+    public VersionSelectReminder getVersionSelectReminder() {
+        VersionSelectReminder reminder = mVersionSelectReminder;
+        if (reminder == null) {
+            LocusInfoCache locusInfoCache = getLocusInfoCache();
+            synchronized (mReminderLock) {
+                reminder = mVersionSelectReminder;
+                if (reminder == null) {
+                    reminder = new VersionSelectReminder(mApplicationContext, locusInfoCache);
+                    mVersionSelectReminder = reminder;
+                }
+            }
+        }
+        return reminder;
     }
 
     @NonNull
@@ -146,11 +200,15 @@ public final class LocusCache {
         return mInstance;
     }
 
+    /**
+     * Warms all parts in background so the first action doesn't need to create them
+     */
     public static void initAsync(@NonNull Application context) {
-        if (mInstance == null) {
-            Thread thread = new Thread(() -> getInstance(context));
-            thread.start();
-        }
+        PluginExecutors.getBackgroundExecutor().execute(() -> {
+            LocusCache locusCache = getInstance(context);
+            locusCache.getFieldRegistry();
+            locusCache.getVersionSelectReminder();
+        });
     }
 
     /**
@@ -162,40 +220,301 @@ public final class LocusCache {
     }
 
     @NonNull
-    private Map<String, ExtUpdateContainerGetter> createExtUpdateContainerFieldMap() {
-        Map<String, ExtUpdateContainerGetter> updateContainerFieldMap = new HashMap<>();
-        for (TaskerField field : mUpdateContainerFields) {
-            //do cast only once
-            updateContainerFieldMap.put(field.mTaskerName, (ExtUpdateContainerGetter) field);
+    public UpdateContainerFieldPlan getFieldPlan(@NonNull String[] fieldList, @NonNull Bundle apiExtraBundle) {
+        for (UpdateContainerFieldPlan plan : mFieldPlans) {
+            if (plan.matches(fieldList, apiExtraBundle)) {
+                return plan;
+            }
+        }
+
+        UpdateContainerFieldRegistry registry = getFieldRegistry();
+        UpdateContainerFieldPlan plan = new UpdateContainerFieldPlan(fieldList, apiExtraBundle, registry.mExtUpdateContainerFieldMap,
+                registry.mTrackRecordingKeys, registry.mTrackGuideKeys, registry.mLocationProgressKeys);
+        synchronized (this) {
+            UpdateContainerFieldPlan[] oldPlans = mFieldPlans;
+            //newest first and drop the oldest if the cache is full
+            int size = Math.min(oldPlans.length + 1, FIELD_PLAN_CACHE_SIZE);
+            UpdateContainerFieldPlan[] plans = new UpdateContainerFieldPlan[size];
+            plans[0] = plan;
+            System.arraycopy(oldPlans, 0, plans, 1, size - 1);
+            mFieldPlans = plans;
+        }
+        Log.d(TAG, "field plan created, cached plans: " + mFieldPlans.length); //NON-NLS
+        return plan;
+    }
+
+    @NonNull
+    public ExtUpdateContainer getUpdateContainer() throws RequiredVersionMissingException, RequiredDataMissingException {
+        long requestTime = System.currentTimeMillis();
+        mLastUpdateContainerRequest = requestTime;
+        CachedUpdateContainer cached = getCachedUpdateContainer();
+
+        if (isPeriodicUpdatesEnabled()) {
+            if (cached.mIsPeriodicUpdate && ((requestTime - cached.mCreated) < PERIODIC_UPDATE_MAX_AGE)) {
+                mUpdateContainerHits.incrementAndGet();
+                return cached.mExtUpdateContainer;
+            }
+            if ((requestTime - mPeriodicUpdatesSubscribeTime) > PERIODIC_UPDATE_MAX_AGE) {
+                //subscribe or resubscribe if updates got lost, requests use IPC calls until the first update arrives
+                startPeriodicUpdates(requestTime);
+            }
         }
 
-        return updateContainerFieldMap;
+        if (!cached.isExpired(requestTime)) {
+            mUpdateContainerHits.incrementAndGet();
+            Log.d(TAG, "getUpdateContainer cache hit, time to expiration: " //NON-NLS
+                    + (cached.mExpiration - requestTime));
+            return cached.mExtUpdateContainer;
+        }
+
+        return refreshUpdateContainer();
     }
 
     @NonNull
-    private static Set<String> getLocusFieldKeys(List<TaskerField> fields) {
-        Set<String> keys = new HashSet<>();
-        for (TaskerField field : fields) {
-            keys.add(field.mTaskerName);
+    private ExtUpdateContainer refreshUpdateContainer() throws RequiredVersionMissingException, RequiredDataMissingException {
+        while (true) {
+            FutureTask<ExtUpdateContainer> running = mUpdateContainerRefresh.get();
+            if (running != null) {
+                mUpdateContainerCoalescedWaits.incrementAndGet();
+                return awaitUpdateContainer(running);
+            }
+
+            FutureTask<ExtUpdateContainer> refresh = new FutureTask<>(this::fetchUpdateContainer);
+            if (mUpdateContainerRefresh.compareAndSet(null, refresh)) {
+                try {
+                    refresh.run();
+                } finally {
+                    mUpdateContainerRefresh.compareAndSet(refresh, null);
+                }
+                return awaitUpdateContainer(refresh);
+            }
+            //lost the race against an other request, wait for its result
         }
-        return keys;
     }
 
     @NonNull
-    public ExtUpdateContainer getUpdateContainer() throws RequiredVersionMissingException, RequiredDataMissingException {
+    private ExtUpdateContainer fetchUpdateContainer() throws RequiredVersionMissingException, RequiredDataMissingException {
         long requestTime = System.currentTimeMillis();
-        if (requestTime > mUpdateContainerExpiration) {
-            UpdateContainer container = ActionBasics.INSTANCE.getUpdateContainer(mApplicationContext, requireLocusVersion());
-            if (container != null) {
-                mExtUpdateContainer = new ExtUpdateContainer(container);
-                mUpdateContainerExpiration = requestTime + UPDATE_CONTAINER_EXPIRATION; //don't care about 1 second offset for manual update requests
+        CachedUpdateContainer cached = getCachedUpdateContainer();
+        if (!cached.isExpired(requestTime)) {
+            //an other request did refresh it in the meantime
+            mUpdateContainerHits.incrementAndGet();
+            return cached.mExtUpdateContainer;
+        }
+
+        mUpdateContainerMisses.incrementAndGet();
+        long ipcStartTime = Diagnostics.start();
+        UpdateContainer container = ActionBasics.INSTANCE.getUpdateContainer(mApplicationContext, requireLocusVersion());
+        Diagnostics.record(Diagnostics.IPC_UPDATE_CONTAINER, ipcStartTime);
+        if (container == null) {
+            return cached.mExtUpdateContainer;
+        }
+
+        //don't care about 1 second offset for manual update requests
+        CachedUpdateContainer refreshed = new CachedUpdateContainer(createExtUpdateContainer(requestTime, container),
+                requestTime + UPDATE_CONTAINER_EXPIRATION, false);
+        mCachedUpdateContainer.set(refreshed);
+        return refreshed.mExtUpdateContainer;
+    }
+
+    @NonNull
+    private CachedUpdateContainer getCachedUpdateContainer() {
+        CachedUpdateContainer cached = mCachedUpdateContainer.get();
+        if (cached == null) {
+            //empty update container to avoid null checks because result is normally never null
+            mCachedUpdateContainer.compareAndSet(null, new CachedUpdateContainer(
+                    new ExtUpdateContainer(new UpdateContainer(), getFieldRegistry().mColumnCount), 0L, false));
+            cached = mCachedUpdateContainer.get();
+        }
+        return cached;
+    }
+
+    @NonNull
+    private ExtUpdateContainer createExtUpdateContainer(long time, @NonNull UpdateContainer update) {
+        return new ExtUpdateContainer(update, getFieldRegistry().mColumnCount, mSampleHistory.add(time, update, getMaxHeartRate()));
+    }
+
+    private int getMaxHeartRate() {
+        try {
+            return Integer.parseInt(mSharedPref.getString(PREF_MAX_HEART_RATE, Integer.toString(DEFAULT_MAX_HEART_RATE)).trim());
+        } catch (NumberFormatException ignored) {
+            return DEFAULT_MAX_HEART_RATE;
+        }
+    }
+
+    /**
+     * @return max distance in meters of the guide point to the track points
+     */
+    public double getTrackMatchTolerance() {
+        return getDoublePreference(PREF_TRACK_MATCH_TOLERANCE, TrackData.DEFAULT_MATCH_TOLERANCE_METERS);
+    }
+
+    /**
+     * @return min elevation gain in meters of detected climbs
+     */
+    public double getClimbMinGain() {
+        return getDoublePreference(PREF_CLIMB_MIN_GAIN, TrackData.DEFAULT_MIN_CLIMB_GAIN_METERS);
+    }
+
+    /**
+     * @return min average grade in percent of detected climbs
+     */
+    public double getClimbMinGrade() {
+        return getDoublePreference(PREF_CLIMB_MIN_GRADE, TrackData.DEFAULT_MIN_CLIMB_GRADE_PERCENT);
+    }
+
+    private double getDoublePreference(@NonNull String key, double defaultValue) {
+        try {
+            return Double.parseDouble(mSharedPref.getString(key, Double.toString(defaultValue)).trim());
+        } catch (NumberFormatException ignored) {
+            return defaultValue;
+        }
+    }
+
+    @NonNull
+    private static ExtUpdateContainer awaitUpdateContainer(@NonNull FutureTask<ExtUpdateContainer> refresh)
+            throws RequiredVersionMissingException, RequiredDataMissingException {
+        try {
+            return refresh.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RequiredVersionMissingException) {
+                throw (RequiredVersionMissingException) cause;
             }
-        } else {
-            Log.d(TAG, "getUpdateContainer cache hit, time to expiration: " //NON-NLS
-                    + (mUpdateContainerExpiration - requestTime));
+            if (cause instanceof RequiredDataMissingException) {
+                throw (RequiredDataMissingException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RequiredDataMissingException("Can't get update container", e); //NON-NLS
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequiredDataMissingException("Interrupted while waiting for update container", e); //NON-NLS
         }
+    }
 
-        return mExtUpdateContainer;
+    public long getUpdateContainerHits() {
+        return mUpdateContainerHits.get();
+    }
+
+    public long getUpdateContainerMisses() {
+        return mUpdateContainerMisses.get();
+    }
+
+    public long getUpdateContainerCoalescedWaits() {
+        return mUpdateContainerCoalescedWaits.get();
+    }
+
+    @NonNull
+    public UpdateContainerEvents getUpdateContainerEvents() {
+        return mUpdateContainerEvents;
+    }
+
+    /**
+     * Event conditions are evaluated on periodic updates, so they subscribe and keep the subscription alive
+     * even if requests don't use periodic updates
+     */
+    public void registerEventCondition(@NonNull UpdateContainerCondition condition)
+            throws RequiredVersionMissingException, RequiredDataMissingException {
+        mUpdateContainerEvents.register(condition);
+        long requestTime = System.currentTimeMillis();
+        if ((requestTime - mPeriodicUpdatesSubscribeTime) > PERIODIC_UPDATE_MAX_AGE) {
+            startPeriodicUpdates(requestTime);
+        }
+    }
+
+    /**
+     * Replaces the condition of an edited event
+     */
+    public void replaceEventCondition(@Nullable UpdateContainerCondition previous, @NonNull UpdateContainerCondition condition)
+            throws RequiredVersionMissingException, RequiredDataMissingException {
+        if ((previous != null) && !previous.getKey().equals(condition.getKey())) {
+            mUpdateContainerEvents.unregister(previous);
+        }
+        registerEventCondition(condition);
+    }
+
+    private boolean isPeriodicUpdatesEnabled() {
+        return mSharedPref.getBoolean(PREF_PERIODIC_UPDATES, false);
+    }
+
+    /**
+     * Is called by {@link PeriodicUpdateReceiver} for each update Locus sends.
+     * Without event conditions the subscription gets dropped if periodic updates are disabled or
+     * if there was no UpdateContainer request within the idle timeout.
+     */
+    public void onPeriodicUpdate(@NonNull LocusVersion locusVersion, @NonNull UpdateContainer update) {
+        long updateTime = System.currentTimeMillis();
+        long idleTimeout = getPeriodicUpdatesIdleTimeout();
+        boolean hasEvents = mUpdateContainerEvents.hasConditions();
+        if (!hasEvents && (!isPeriodicUpdatesEnabled() || ((updateTime - mLastUpdateContainerRequest) > idleTimeout))) {
+            Log.d(TAG, "periodic updates idle, unsubscribe"); //NON-NLS
+            stopPeriodicUpdates(locusVersion);
+            return;
+        }
+
+        if ((mLocusVersion == null) || !mLocusVersion.getPackageName().equals(locusVersion.getPackageName())) {
+            //update of a not selected version
+            return;
+        }
+
+        ExtUpdateContainer extUpdate = createExtUpdateContainer(updateTime, update);
+        mCachedUpdateContainer.set(new CachedUpdateContainer(extUpdate, updateTime + UPDATE_CONTAINER_EXPIRATION, true));
+
+        if (hasEvents) {
+            UpdateContainerFieldRegistry registry = getFieldRegistry();
+            mUpdateContainerEvents.onUpdate(extUpdate, registry.mExtUpdateContainerFieldMap,
+                    registry.mTrackRecordingKeys, registry.mTrackGuideKeys, updateTime);
+        }
+    }
+
+    private long getPeriodicUpdatesIdleTimeout() {
+        long timeoutSeconds;
+        try {
+            timeoutSeconds = Long.parseLong(mSharedPref.getString(PREF_PERIODIC_UPDATES_IDLE_TIMEOUT,
+                    Long.toString(PERIODIC_UPDATE_DEFAULT_IDLE_TIMEOUT)).trim());
+        } catch (NumberFormatException ignored) {
+            timeoutSeconds = PERIODIC_UPDATE_DEFAULT_IDLE_TIMEOUT;
+        }
+        return timeoutSeconds * DateUtils.SECOND_IN_MILLIS;
+    }
+
+    private void startPeriodicUpdates(long requestTime) throws RequiredVersionMissingException, RequiredDataMissingException {
+        Log.d(TAG, "subscribe periodic updates"); //NON-NLS
+        mPeriodicUpdatesSubscribeTime = requestTime;
+        ActionBasics.INSTANCE.enablePeriodicUpdatesReceiver(mApplicationContext, requireLocusVersion(), PeriodicUpdateReceiver.class);
+    }
+
+    private void stopPeriodicUpdates(@NonNull LocusVersion locusVersion) {
+        mPeriodicUpdatesSubscribeTime = 0L;
+        try {
+            ActionBasics.INSTANCE.disablePeriodicUpdatesReceiver(mApplicationContext, locusVersion, PeriodicUpdateReceiver.class);
+        } catch (RequiredVersionMissingException e) {
+            Log.w(TAG, "Can't disable periodic updates", e); //NON-NLS
+        }
+    }
+
+    /**
+     * Immutable cache entry, gets replaced as a whole to publish a new update container to all threads
+     */
+    private static final class CachedUpdateContainer {
+        @NonNull
+        final ExtUpdateContainer mExtUpdateContainer;
+        final long mCreated;
+        final long mExpiration;
+        final boolean mIsPeriodicUpdate;
+
+        CachedUpdateContainer(@NonNull ExtUpdateContainer extUpdateContainer, long expiration, boolean isPeriodicUpdate) {
+            mExtUpdateContainer = extUpdateContainer;
+            mCreated = System.currentTimeMillis();
+            mExpiration = expiration;
+            mIsPeriodicUpdate = isPeriodicUpdate;
+        }
+
+        boolean isExpired(long requestTime) {
+            return requestTime > mExpiration;
+        }
     }
 
     public static class MissingAppContextException extends Exception {
@@ -0,0 +1,149 @@
+package falcosc.locus.addon.tasker.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import locus.api.android.ActionBasics;
+import locus.api.android.objects.LocusInfo;
+import locus.api.android.objects.LocusVersion;
+import locus.api.android.utils.LocusUtils;
+
+/**
+ * LocusInfo of all installed Locus versions, probed in parallel and shared between actions for a short time.
+ * Package changes invalidate the cache because they change the installed versions.
+ */
+public final class LocusInfoCache {
+
+    private static final String TAG = "LocusInfoCache"; //NON-NLS
+    //last active changes if the user switches between versions, keep it short
+    private static final long LOCUS_INFO_TTL = 3000L;
+    private static final long PROBE_TIMEOUT = 5000L;
+
+    private final Context mContext;
+    @Nullable
+    private volatile List<LocusVersion> mAvailableVersions;
+    @Nullable
+    private List<VersionInfo> mVersionInfos;
+    private long mExpiration;
+
+    public static final class VersionInfo {
+        @NonNull
+        public final LocusVersion mVersion;
+        @NonNull
+        public final LocusInfo mInfo;
+
+        VersionInfo(@NonNull LocusVersion version, @NonNull LocusInfo info) {
+            mVersion = version;
+            mInfo = info;
+        }
+    }
+
+    public LocusInfoCache(@NonNull Context context) {
+        mContext = context;
+    }
+
+    public void registerPackageChangeReceiver() {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package"); //NON-NLS
+        mContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Log.d(TAG, "package changed, invalidate: " + intent.getData()); //NON-NLS
+                invalidate();
+            }
+        }, filter);
+    }
+
+    public synchronized void invalidate() {
+        mAvailableVersions = null;
+        mVersionInfos = null;
+    }
+
+    @NonNull
+    public List<LocusVersion> getAvailableVersions() {
+        List<LocusVersion> versions = mAvailableVersions;
+        if (versions == null) {
+            versions = Collections.unmodifiableList(new ArrayList<>(LocusUtils.INSTANCE.getAvailableVersions(mContext)));
+            mAvailableVersions = versions;
+        }
+        return versions;
+    }
+
+    /**
+     * Concurrent callers wait for the running probe instead of starting their own
+     *
+     * @return info of all versions which did answer
+     */
+    @NonNull
+    public synchronized List<VersionInfo> getVersionInfos() {
+        long requestTime = System.currentTimeMillis();
+        if ((mVersionInfos == null) || (requestTime > mExpiration)) {
+            mVersionInfos = probe(getAvailableVersions());
+            mExpiration = System.currentTimeMillis() + LOCUS_INFO_TTL;
+            Log.d(TAG, "probed " + mVersionInfos.size() + " versions in " //NON-NLS
+                    + (System.currentTimeMillis() - requestTime) + "ms"); //NON-NLS
+        }
+        return mVersionInfos;
+    }
+
+    /**
+     * @param runningOnly ignore versions which are not running
+     * @return version with the latest activity or null if no version did answer
+     */
+    @Nullable
+    public VersionInfo getLastActive(boolean runningOnly) {
+        VersionInfo lastActive = null;
+        for (VersionInfo versionInfo : getVersionInfos()) {
+            if (runningOnly && !versionInfo.mInfo.isRunning()) {
+                continue;
+            }
+            if ((lastActive == null) || (versionInfo.mInfo.getLastActive() > lastActive.mInfo.getLastActive())) {
+                lastActive = versionInfo;
+            }
+        }
+        return lastActive;
+    }
+
+    @NonNull
+    private List<VersionInfo> probe(@NonNull List<LocusVersion> versions) {
+        List<Future<LocusInfo>> probes = new ArrayList<>(versions.size());
+        for (LocusVersion version : versions) {
+            probes.add(PluginExecutors.getBackgroundExecutor().submit(() -> ActionBasics.INSTANCE.getLocusInfo(mContext, version)));
+        }
+
+        List<VersionInfo> versionInfos = new ArrayList<>(versions.size());
+        long deadline = System.currentTimeMillis() + PROBE_TIMEOUT;
+        for (int i = 0; i < probes.size(); i++) {
+            Future<LocusInfo> probe = probes.get(i);
+            try {
+                LocusInfo info = probe.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (info != null) {
+                    versionInfos.add(new VersionInfo(versions.get(i), info));
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                probe.cancel(true);
+                Log.w(TAG, "Can't get info of " + versions.get(i), e); //NON-NLS
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return Collections.unmodifiableList(versionInfos);
+    }
+}
@@ -0,0 +1,63 @@
+package falcosc.locus.addon.tasker.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Shared threads of the plugin to keep work away from the main thread and broadcast receivers.
+ */
+public final class PluginExecutors {
+
+    //tasks of this executor may wait for other background tasks, so it must not be bounded
+    private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newCachedThreadPool(new NamedThreadFactory("PluginBackground")); //NON-NLS
+    //tasker actions, bounded to keep bursts of actions from piling up threads which all wait on Locus
+    private static final InstrumentedExecutor WORKER_EXECUTOR = new InstrumentedExecutor("PluginWorker", 2, 32, //NON-NLS
+            Diagnostics.getHistogram(Diagnostics.WORKER_QUEUE_WAIT));
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private PluginExecutors() {
+    }
+
+    /**
+     * For IPC probes and other work which isn't on the critical path of a Tasker action
+     */
+    @NonNull
+    public static ExecutorService getBackgroundExecutor() {
+        return BACKGROUND_EXECUTOR;
+    }
+
+    /**
+     * For Tasker actions, rejects the task if too many actions are waiting
+     */
+    @NonNull
+    public static InstrumentedExecutor getWorkerExecutor() {
+        return WORKER_EXECUTOR;
+    }
+
+    public static void runOnMainThread(@NonNull Runnable runnable) {
+        MAIN_HANDLER.post(runnable);
+    }
+
+    static final class NamedThreadFactory implements ThreadFactory {
+        private final String mPrefix;
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        NamedThreadFactory(@NonNull String prefix) {
+            mPrefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, mPrefix + "-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read path of the UpdateContainer fields with a fake container of the same value types.
+ * Run with: gradlew :core:jmh -PjmhIncludes=ColumnSnapshotBenchmark -PjmhProfilers=gc
+ * and compare gc.alloc.rate.norm of the snapshot with the boxed getters which it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnSnapshotBenchmark {
+
+    //about the number and mix of UpdateContainer fields
+    private static final int FIELDS_PER_TYPE = 12;
+
+    /**
+     * Getters of a periodic update, like UpdateContainer they only return stored values
+     */
+    public static final class FakeUpdateContainer {
+        final double[] mDoubles = new double[FIELDS_PER_TYPE];
+        final float[] mFloats = new float[FIELDS_PER_TYPE];
+        final long[] mLongs = new long[FIELDS_PER_TYPE];
+        final int[] mInts = new int[FIELDS_PER_TYPE];
+        final boolean[] mBooleans = new boolean[FIELDS_PER_TYPE];
+        final String[] mStrings = new String[FIELDS_PER_TYPE];
+
+        FakeUpdateContainer() {
+            for (int i = 0; i < FIELDS_PER_TYPE; i++) {
+                mDoubles[i] = 47.123456 + i;
+                mFloats[i] = 3.25f * i;
+                mLongs[i] = 1_650_000_000_000L + i;
+                mInts[i] = 100 + i;
+                mBooleans[i] = (i % 2) == 0;
+                mStrings[i] = ((i % 3) == 0) ? null : ("name " + i); //NON-NLS
+            }
+        }
+
+        double getDouble(int i) {
+            return mDoubles[i];
+        }
+
+        float getFloat(int i) {
+            return mFloats[i];
+        }
+
+        long getLong(int i) {
+            return mLongs[i];
+        }
+
+        int getInt(int i) {
+            return mInts[i];
+        }
+
+        boolean getBoolean(int i) {
+            return mBooleans[i];
+        }
+
+        String getString(int i) {
+            return mStrings[i];
+        }
+    }
+
+    /**
+     * Getter style before the snapshot, each value is boxed
+     */
+    interface BoxedGetter {
+        Object apply(FakeUpdateContainer container);
+    }
+
+    private FakeUpdateContainer mContainer;
+    private List<ColumnGetter<FakeUpdateContainer>> mColumnGetters;
+    private List<BoxedGetter> mBoxedGetters;
+    private ColumnSnapshot<FakeUpdateContainer> mReusedSnapshot;
+
+    @Setup
+    public void setUp() {
+        mContainer = new FakeUpdateContainer();
+        mColumnGetters = new ArrayList<>();
+        mBoxedGetters = new ArrayList<>();
+        for (int i = 0; i < FIELDS_PER_TYPE; i++) {
+            int field = i;
+            mColumnGetters.add((c, s) -> s.put(c.getDouble(field)));
+            mColumnGetters.add((c, s) -> s.put(c.getFloat(field)));
+            mColumnGetters.add((c, s) -> s.put(c.getLong(field)));
+            mColumnGetters.add((c, s) -> s.put(c.getInt(field)));
+            mColumnGetters.add((c, s) -> s.put(c.getBoolean(field)));
+            mColumnGetters.add((c, s) -> s.put(c.getString(field)));
+            mBoxedGetters.add(c -> c.getDouble(field));
+            mBoxedGetters.add(c -> c.getFloat(field));
+            mBoxedGetters.add(c -> c.getLong(field));
+            mBoxedGetters.add(c -> c.getInt(field));
+            mBoxedGetters.add(c -> c.getBoolean(field));
+            mBoxedGetters.add(c -> c.getString(field));
+        }
+        mReusedSnapshot = new ColumnSnapshot<>(mContainer, mColumnGetters.size());
+    }
+
+    /**
+     * Event condition path, every field as number on each periodic update
+     */
+    @Benchmark
+    public void snapshotDoubles(Blackhole blackhole) {
+        ColumnSnapshot<FakeUpdateContainer> snapshot = new ColumnSnapshot<>(mContainer, mColumnGetters.size());
+        for (int i = 0; i < mColumnGetters.size(); i++) {
+            blackhole.consume(snapshot.getDouble(i, mColumnGetters.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void boxedDoubles(Blackhole blackhole) {
+        for (int i = 0; i < mBoxedGetters.size(); i++) {
+            blackhole.consume(ColumnSnapshot.toDouble(mBoxedGetters.get(i).apply(mContainer)));
+        }
+    }
+
+    /**
+     * Tasker variable path, every field as string
+     */
+    @Benchmark
+    public void snapshotStrings(Blackhole blackhole) {
+        ColumnSnapshot<FakeUpdateContainer> snapshot = new ColumnSnapshot<>(mContainer, mColumnGetters.size());
+        for (int i = 0; i < mColumnGetters.size(); i++) {
+            blackhole.consume(snapshot.getString(i, mColumnGetters.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void boxedStrings(Blackhole blackhole) {
+        for (int i = 0; i < mBoxedGetters.size(); i++) {
+            blackhole.consume(String.valueOf(mBoxedGetters.get(i).apply(mContainer)));
+        }
+    }
+
+    /**
+     * Second request of the same update, the snapshot returns the formatted strings again
+     */
+    @Benchmark
+    public void snapshotStringsReused(Blackhole blackhole) {
+        ColumnSnapshot<FakeUpdateContainer> snapshot = mReusedSnapshot;
+        for (int i = 0; i < mColumnGetters.size(); i++) {
+            blackhole.consume(snapshot.getString(i, mColumnGetters.get(i)));
+        }
+    }
+}
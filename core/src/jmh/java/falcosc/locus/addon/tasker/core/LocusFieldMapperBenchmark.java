@@ -0,0 +1,47 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import locus.api.objects.geoData.Point;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Variable mapping of the Run Task actions from the track and point tools menu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocusFieldMapperBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int pointCount;
+
+    private Track mTrack;
+    private Point mPoint;
+
+    @Setup
+    public void setUp() {
+        mTrack = SyntheticTracks.create(pointCount);
+        mPoint = new Point("synthetic point", mTrack.getPoint(pointCount / 2)); //NON-NLS
+    }
+
+    @Benchmark
+    public Map<String, String> mapTrackFields() {
+        return LocusFieldMapper.mapTrackFields(mTrack);
+    }
+
+    @Benchmark
+    public Map<String, String> mapPointFields() {
+        return LocusFieldMapper.mapPointFields(mPoint, "p_"); //NON-NLS
+    }
+}
@@ -0,0 +1,47 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import androidx.annotation.NonNull;
+import locus.api.objects.extra.Location;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Reproducible tracks with a hilly elevation profile and one point per second
+ */
+final class SyntheticTracks {
+
+    private static final long SEED = 42L;
+    private static final long START_TIME = 1_600_000_000_000L;
+
+    private SyntheticTracks() {
+    }
+
+    @SuppressWarnings("MagicNumber")
+    @NonNull
+    static Track create(int pointCount) {
+        Random random = new Random(SEED);
+        List<Location> points = new ArrayList<>(pointCount);
+        double lat = 47.0;
+        double lon = 11.0;
+        double heading = 0.0;
+        for (int i = 0; i < pointCount; i++) {
+            //about 5m per point with slowly changing heading
+            heading += (random.nextDouble() - 0.5) * 0.2;
+            lat += Math.cos(heading) * 0.000045;
+            lon += Math.sin(heading) * 0.000065;
+            Location loc = new Location(lat, lon);
+            loc.setAltitude(1000.0 + (300.0 * Math.sin(i / 2000.0)) + (random.nextDouble() * 4.0));
+            loc.setTime(START_TIME + (i * 1000L));
+            points.add(loc);
+        }
+
+        Track track = new Track();
+        track.setId(pointCount);
+        track.setName("synthetic " + pointCount); //NON-NLS
+        track.setPoints(points);
+        return track;
+    }
+}
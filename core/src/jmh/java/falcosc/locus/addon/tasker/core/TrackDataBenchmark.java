@@ -0,0 +1,95 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import locus.api.objects.extra.Location;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Track preparation on a new guide target and the on-track lookup of each navigation progress request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackDataBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int pointCount;
+
+    private Track mTrack;
+    private Track mEditedTrack;
+    private TrackData mTrackData;
+    private Location mNearPoint;
+    private Location mFarBehindPoint;
+    private Location mOffTrackPoint;
+    private Location mNearbyPoint;
+
+    @Setup
+    public void setUp() {
+        mTrack = SyntheticTracks.create(pointCount);
+        mTrackData = new TrackData(mTrack);
+        mTrackData.mPreviousFoundIndex = (pointCount * 3) / 4;
+        mNearPoint = new Location(mTrack.getPoint(mTrackData.mPreviousFoundIndex + 2));
+        //a GPS jump or reroute back to the start, the forward scan finds nothing
+        mFarBehindPoint = new Location(mTrack.getPoint(10));
+        mOffTrackPoint = new Location(0.0, 0.0);
+        //route edit close to the start, the end of the track stays the same
+        List<Location> editedPoints = new ArrayList<>(mTrack.getPoints());
+        Location edited = new Location(editedPoints.get(pointCount / 10));
+        edited.setAltitude(edited.getAltitude() + 20.0);
+        editedPoints.set(pointCount / 10, edited);
+        mEditedTrack = new Track();
+        mEditedTrack.setId(mTrack.getId());
+        mEditedTrack.setPoints(editedPoints);
+        //rounded copy of a track point, only the tolerance lookup finds it
+        mNearbyPoint = new Location(mTrack.getPoint(pointCount / 3));
+        mNearbyPoint.setLatitude(mNearbyPoint.getLatitude() + 0.00002);
+    }
+
+    @Benchmark
+    public TrackData createTrackData() {
+        return new TrackData(mTrack);
+    }
+
+    @Benchmark
+    public TrackData updateAfterRouteEdit() {
+        return new TrackData(mEditedTrack, TrackData.DEFAULT_MATCH_TOLERANCE_METERS, mTrackData);
+    }
+
+    @Benchmark
+    public int matchNearPreviousIndex() {
+        return mTrackData.findMatchingPointIndex(mNearPoint);
+    }
+
+    @Benchmark
+    public int matchAfterJumpBack() {
+        return mTrackData.findMatchingPointIndex(mFarBehindPoint);
+    }
+
+    @Benchmark
+    public int matchWithinTolerance() {
+        return mTrackData.findMatchingPointIndex(mNearbyPoint);
+    }
+
+    @Benchmark
+    public int matchOffTrack() {
+        return mTrackData.findMatchingPointIndex(mOffTrackPoint);
+    }
+
+    @Benchmark
+    public int findClimbs() {
+        int pointIndex = mTrackData.mPreviousFoundIndex;
+        return mTrackData.findNextClimb(pointIndex) + mTrackData.findCurrentClimb(pointIndex);
+    }
+}
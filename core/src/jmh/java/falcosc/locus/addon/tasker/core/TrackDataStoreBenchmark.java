@@ -0,0 +1,65 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import locus.api.objects.geoData.Track;
+
+/**
+ * First fire after a restart: stored track data compared with the full calculation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackDataStoreBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int pointCount;
+
+    private File mDir;
+    private TrackDataStore mStore;
+    private Track mTrack;
+
+    @Setup
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("track_data").toFile(); //NON-NLS
+        mStore = new TrackDataStore(mDir, Long.MAX_VALUE);
+        mTrack = SyntheticTracks.create(pointCount);
+        mStore.save(new TrackData(mTrack));
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        mDir.delete();
+    }
+
+    @Benchmark
+    public TrackData load() throws IOException {
+        return mStore.load(mTrack, TrackData.DEFAULT_MATCH_TOLERANCE_METERS);
+    }
+
+    @Benchmark
+    public TrackData calculate() {
+        return new TrackData(mTrack);
+    }
+}
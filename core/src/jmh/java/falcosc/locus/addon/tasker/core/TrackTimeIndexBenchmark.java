@@ -0,0 +1,49 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import locus.api.objects.extra.Location;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Geotag photos: index creation per track and one lookup per photo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackTimeIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int pointCount;
+
+    private Track mTrack;
+    private TrackTimeIndex mIndex;
+    private long mPhotoTime;
+
+    @Setup
+    public void setUp() {
+        mTrack = SyntheticTracks.create(pointCount);
+        mIndex = new TrackTimeIndex(mTrack.getPoints());
+        //between two points
+        mPhotoTime = mTrack.getPoint(pointCount / 2).getTime() + 400L;
+    }
+
+    @Benchmark
+    public TrackTimeIndex createIndex() {
+        return new TrackTimeIndex(mTrack.getPoints());
+    }
+
+    @Benchmark
+    public Location findNearestLocation() {
+        return mIndex.findNearestLocation(mPhotoTime);
+    }
+}
@@ -0,0 +1,131 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Climbs of a track as sorted start and top point indices, so the climb of a point is a binary search.
+ * A climb starts at a low point and ends at its top once the track drops more than the hysteresis below it.
+ */
+final class ClimbIndex {
+
+    //smaller altitude changes are noise or short dips within a climb
+    private static final double HYSTERESIS_METERS = 10.0;
+
+    final int[] mStarts;
+    final int[] mTops;
+    private final double mMinGainMeters;
+    private final double mMinGradePercent;
+
+    private ClimbIndex(@NonNull int[] starts, @NonNull int[] tops, double minGainMeters, double minGradePercent) {
+        mStarts = starts;
+        mTops = tops;
+        mMinGainMeters = minGainMeters;
+        mMinGradePercent = minGradePercent;
+    }
+
+    @NonNull
+    static ClimbIndex detect(@NonNull double[] altitudes, @NonNull double[] distances,
+                             double minGainMeters, double minGradePercent) {
+        int[] starts = new int[8];
+        int[] tops = new int[8];
+        int count = 0;
+        int low = 0;
+        int top = -1;
+        for (int i = 1; i < altitudes.length; i++) {
+            double altitude = altitudes[i];
+            if (top < 0) {
+                //the last point of a flat valley, otherwise flat parts lower the grade
+                if (altitude <= altitudes[low]) {
+                    low = i;
+                } else if ((altitude - altitudes[low]) >= HYSTERESIS_METERS) {
+                    top = i;
+                }
+            } else if (altitude > altitudes[top]) {
+                //the first point of a flat summit, the climb ends where the altitude is reached
+                top = i;
+            } else if ((altitudes[top] - altitude) >= HYSTERESIS_METERS) {
+                if (isClimb(altitudes, distances, low, top, minGainMeters, minGradePercent)) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        tops = Arrays.copyOf(tops, count * 2);
+                    }
+                    starts[count] = low;
+                    tops[count] = top;
+                    count++;
+                }
+                low = i;
+                top = -1;
+            }
+        }
+        if ((top >= 0) && isClimb(altitudes, distances, low, top, minGainMeters, minGradePercent)) {
+            starts = Arrays.copyOf(starts, count + 1);
+            tops = Arrays.copyOf(tops, count + 1);
+            starts[count] = low;
+            tops[count] = top;
+            count++;
+        }
+        return new ClimbIndex(Arrays.copyOf(starts, count), Arrays.copyOf(tops, count), minGainMeters, minGradePercent);
+    }
+
+    private static boolean isClimb(@NonNull double[] altitudes, @NonNull double[] distances, int start, int top,
+                                   double minGainMeters, double minGradePercent) {
+        double gain = altitudes[top] - altitudes[start];
+        double length = distances[top] - distances[start];
+        return (gain >= minGainMeters) && (length > 0.0) && (((gain / length) * 100.0) >= minGradePercent);
+    }
+
+    int size() {
+        return mStarts.length;
+    }
+
+    boolean hasThresholds(double minGainMeters, double minGradePercent) {
+        return (Double.compare(mMinGainMeters, minGainMeters) == 0) && (Double.compare(mMinGradePercent, minGradePercent) == 0);
+    }
+
+    /**
+     * @return index of the first climb which starts at or after the point or -1
+     */
+    int findNext(int pointIndex) {
+        int next = firstStartAtOrAfter(pointIndex);
+        return (next < mStarts.length) ? next : -1;
+    }
+
+    /**
+     * Climbs don't overlap, so only the climb before the next one can contain the point
+     *
+     * @return index of the climb which the point is part of or -1
+     */
+    int findCurrent(int pointIndex) {
+        int previous = firstStartAtOrAfter(pointIndex) - 1;
+        return ((previous >= 0) && (mTops[previous] > pointIndex)) ? previous : -1;
+    }
+
+    private int firstStartAtOrAfter(int pointIndex) {
+        int found = Arrays.binarySearch(mStarts, pointIndex);
+        return (found < 0) ? -(found + 1) : found;
+    }
+
+    void write(@NonNull DataOutputStream out) throws IOException {
+        out.writeDouble(mMinGainMeters);
+        out.writeDouble(mMinGradePercent);
+        out.writeInt(mStarts.length);
+        TrackData.writeInts(out, mStarts);
+        TrackData.writeInts(out, mTops);
+    }
+
+    @NonNull
+    static ClimbIndex read(@NonNull ByteBuffer buffer, int pointCount) {
+        double minGainMeters = buffer.getDouble();
+        double minGradePercent = buffer.getDouble();
+        int count = buffer.getInt();
+        if ((count < 0) || (count > pointCount)) {
+            throw new IllegalArgumentException("invalid climb count " + count); //NON-NLS
+        }
+        return new ClimbIndex(TrackData.readInts(buffer, count), TrackData.readInts(buffer, count), minGainMeters, minGradePercent);
+    }
+}
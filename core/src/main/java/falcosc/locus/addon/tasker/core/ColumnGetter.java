@@ -0,0 +1,11 @@
+package falcosc.locus.addon.tasker.core;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Reads one value of the source and puts it into the snapshot,
+ * the put overload is selected by the value type to avoid boxing of primitives.
+ */
+public interface ColumnGetter<S> {
+    void apply(@NonNull S source, @NonNull ColumnSnapshot<S> snapshot);
+}
@@ -0,0 +1,194 @@
+package falcosc.locus.addon.tasker.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Primitive columns of all field values of one source object indexed by field ordinal.
+ * Each column is read and formatted only once, requests of the same source reuse the strings.
+ * Numbers share one long column, object and string columns are only allocated if they are used.
+ *
+ * @param <S> source which the {@link ColumnGetter}s read
+ */
+public class ColumnSnapshot<S> {
+
+    private static final byte TYPE_EMPTY = 0;
+    private static final byte TYPE_DOUBLE = 1;
+    private static final byte TYPE_FLOAT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_OBJECT = 5;
+    private static final int NUMBER_BUFFER_SIZE = 32;
+
+    /**
+     * Type of the value which the getter put, not a guess from its formatted string
+     */
+    public enum ValueType {
+        NUMBER,
+        BOOLEAN,
+        TEXT,
+        NULL
+    }
+
+    @NonNull
+    private final S mSource;
+    private final byte[] mTypes;
+    //raw bits of doubles and floats, longs and booleans as they are
+    private final long[] mBits;
+    @Nullable
+    private Object[] mObjects;
+    @Nullable
+    private String[] mStrings;
+    private final StringBuilder mNumberBuffer = new StringBuilder(NUMBER_BUFFER_SIZE);
+    //column of the running getter
+    private int mCursor;
+
+    public ColumnSnapshot(@NonNull S source, int columnCount) {
+        mSource = source;
+        mTypes = new byte[columnCount];
+        mBits = new long[columnCount];
+    }
+
+    @NonNull
+    public synchronized String getString(int ordinal, @NonNull ColumnGetter<S> getter) {
+        if (mStrings == null) {
+            mStrings = new String[mTypes.length];
+        }
+        String value = mStrings[ordinal];
+        if (value == null) {
+            read(ordinal, getter);
+            value = format(ordinal);
+            mStrings[ordinal] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return value as double, booleans are 1 or 0 and everything which isn't a number is NaN
+     */
+    public synchronized double getDouble(int ordinal, @NonNull ColumnGetter<S> getter) {
+        read(ordinal, getter);
+        switch (mTypes[ordinal]) {
+            case TYPE_DOUBLE:
+            case TYPE_FLOAT:
+                return Double.longBitsToDouble(mBits[ordinal]);
+            case TYPE_LONG:
+            case TYPE_BOOLEAN:
+                return mBits[ordinal];
+            default:
+                return toDouble(getObject(ordinal));
+        }
+    }
+
+    @NonNull
+    public synchronized ValueType getValueType(int ordinal, @NonNull ColumnGetter<S> getter) {
+        read(ordinal, getter);
+        switch (mTypes[ordinal]) {
+            case TYPE_DOUBLE:
+            case TYPE_FLOAT:
+            case TYPE_LONG:
+                return ValueType.NUMBER;
+            case TYPE_BOOLEAN:
+                return ValueType.BOOLEAN;
+            default:
+                return valueTypeOf(getObject(ordinal));
+        }
+    }
+
+    /**
+     * @return type of a boxed value, everything which isn't a number or boolean is text
+     */
+    @NonNull
+    public static ValueType valueTypeOf(@Nullable Object value) {
+        if (value == null) {
+            return ValueType.NULL;
+        }
+        if (value instanceof Number) {
+            return ValueType.NUMBER;
+        }
+        if (value instanceof Boolean) {
+            return ValueType.BOOLEAN;
+        }
+        return ValueType.TEXT;
+    }
+
+    public static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1.0 : 0.0;
+        }
+        return Double.NaN;
+    }
+
+    private void read(int ordinal, @NonNull ColumnGetter<S> getter) {
+        if (mTypes[ordinal] == TYPE_EMPTY) {
+            mCursor = ordinal;
+            getter.apply(mSource, this);
+        }
+    }
+
+    @NonNull
+    private String format(int ordinal) {
+        mNumberBuffer.setLength(0);
+        switch (mTypes[ordinal]) {
+            case TYPE_DOUBLE:
+                mNumberBuffer.append(Double.longBitsToDouble(mBits[ordinal]));
+                break;
+            case TYPE_FLOAT:
+                //same digits as the boxed Float had
+                mNumberBuffer.append((float) Double.longBitsToDouble(mBits[ordinal]));
+                break;
+            case TYPE_LONG:
+                mNumberBuffer.append(mBits[ordinal]);
+                break;
+            case TYPE_BOOLEAN:
+                mNumberBuffer.append(mBits[ordinal] != 0L);
+                break;
+            default:
+                return String.valueOf(getObject(ordinal));
+        }
+        return mNumberBuffer.toString();
+    }
+
+    @Nullable
+    private Object getObject(int ordinal) {
+        return (mObjects == null) ? null : mObjects[ordinal];
+    }
+
+    public void put(double value) {
+        mBits[mCursor] = Double.doubleToRawLongBits(value);
+        mTypes[mCursor] = TYPE_DOUBLE;
+    }
+
+    public void put(float value) {
+        mBits[mCursor] = Double.doubleToRawLongBits(value);
+        mTypes[mCursor] = TYPE_FLOAT;
+    }
+
+    public void put(long value) {
+        mBits[mCursor] = value;
+        mTypes[mCursor] = TYPE_LONG;
+    }
+
+    public void put(int value) {
+        put((long) value);
+    }
+
+    public void put(boolean value) {
+        mBits[mCursor] = value ? 1L : 0L;
+        mTypes[mCursor] = TYPE_BOOLEAN;
+    }
+
+    /**
+     * Strings, locations and nullable values, which are formatted like before with String.valueOf
+     */
+    public void put(Object value) {
+        if (mObjects == null) {
+            mObjects = new Object[mTypes.length];
+        }
+        mObjects[mCursor] = value;
+        mTypes[mCursor] = TYPE_OBJECT;
+    }
+}
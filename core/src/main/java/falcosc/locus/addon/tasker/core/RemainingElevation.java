@@ -0,0 +1,162 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Backward cumulative uphill and downhill of a track. The state of the backward pass is kept at each
+ * chunk boundary of {@link TrackHash}, so a changed track only needs the pass up to its last changed chunk.
+ */
+final class RemainingElevation {
+
+    // Close-ish match to Strava's measured elevation.
+    private static final int FILTER_METERS = 3;
+
+    //one larger than the point count because remaining elevation is assigned to point+1, index 0 is the total
+    final int[] mUphill;
+    final int[] mDownhill;
+    //pass state after the last n chunks, index 0 is the start state
+    private final double[] mCheckpointUphill;
+    private final double[] mCheckpointDownhill;
+    private final double[] mCheckpointAltitude;
+    private final boolean[] mCheckpointPastFilter;
+    final int mReusedPoints;
+
+    private RemainingElevation(@NonNull int[] uphill, @NonNull int[] downhill,
+                               @NonNull double[] checkpointUphill, @NonNull double[] checkpointDownhill,
+                               @NonNull double[] checkpointAltitude, @NonNull boolean[] checkpointPastFilter, int reusedPoints) {
+        mUphill = uphill;
+        mDownhill = downhill;
+        mCheckpointUphill = checkpointUphill;
+        mCheckpointDownhill = checkpointDownhill;
+        mCheckpointAltitude = checkpointAltitude;
+        mCheckpointPastFilter = checkpointPastFilter;
+        mReusedPoints = reusedPoints;
+    }
+
+    /**
+     * @param reusedChunks number of chunks at the track end which are the same in the previous track
+     */
+    @SuppressWarnings("NumericCastThatLosesPrecision")
+    @NonNull
+    static RemainingElevation calculate(@NonNull double[] altitudes, @Nullable RemainingElevation previous, int reusedChunks) {
+        int size = altitudes.length;
+        int checkpointCount = (size / TrackHash.CHUNK_SIZE) + 1;
+        int[] uphill = new int[size + 1];
+        int[] downhill = new int[size + 1];
+        double[] checkpointUphill = new double[checkpointCount];
+        double[] checkpointDownhill = new double[checkpointCount];
+        double[] checkpointAltitude = new double[checkpointCount];
+        boolean[] checkpointPastFilter = new boolean[checkpointCount];
+        if (size == 0) {
+            return new RemainingElevation(uphill, downhill, checkpointUphill, checkpointDownhill,
+                    checkpointAltitude, checkpointPastFilter, 0);
+        }
+
+        double uphillElevation = 0.0;
+        double downhillElevation = 0.0;
+        boolean pastFilter = false;
+        double nextAltitude = altitudes[size - 1];
+        int resumeIndex = size;
+        if ((previous != null) && (reusedChunks > 0)) {
+            //remaining values only depend on the points after them, the same track end has the same values
+            int reusedPoints = reusedChunks * TrackHash.CHUNK_SIZE;
+            resumeIndex = size - reusedPoints;
+            int offset = (previous.mUphill.length - 1) - size;
+            System.arraycopy(previous.mUphill, resumeIndex + 1 + offset, uphill, resumeIndex + 1, reusedPoints);
+            System.arraycopy(previous.mDownhill, resumeIndex + 1 + offset, downhill, resumeIndex + 1, reusedPoints);
+            System.arraycopy(previous.mCheckpointUphill, 0, checkpointUphill, 0, reusedChunks + 1);
+            System.arraycopy(previous.mCheckpointDownhill, 0, checkpointDownhill, 0, reusedChunks + 1);
+            System.arraycopy(previous.mCheckpointAltitude, 0, checkpointAltitude, 0, reusedChunks + 1);
+            System.arraycopy(previous.mCheckpointPastFilter, 0, checkpointPastFilter, 0, reusedChunks + 1);
+            uphillElevation = checkpointUphill[reusedChunks];
+            downhillElevation = checkpointDownhill[reusedChunks];
+            nextAltitude = checkpointAltitude[reusedChunks];
+            pastFilter = checkpointPastFilter[reusedChunks];
+        } else {
+            checkpointAltitude[0] = nextAltitude;
+        }
+
+        for (int i = resumeIndex - 1; i >= 0; i--) {
+            double currentAltitude = altitudes[i];
+            if (nextAltitude > currentAltitude) {
+                double difference = nextAltitude - currentAltitude;
+                if (difference >= FILTER_METERS) {
+                    uphillElevation += difference;
+                    pastFilter = true;
+                }
+            } else {
+                double difference = currentAltitude - nextAltitude;
+                if (difference >= FILTER_METERS) {
+                    downhillElevation += difference;
+                    pastFilter = true;
+                }
+            }
+
+            uphill[i + 1] = (int) uphillElevation;
+            downhill[i + 1] = (int) downhillElevation;
+
+            if (pastFilter) {
+                nextAltitude = currentAltitude;
+            }
+
+            int processed = size - i;
+            if ((processed % TrackHash.CHUNK_SIZE) == 0) {
+                int checkpoint = processed / TrackHash.CHUNK_SIZE;
+                checkpointUphill[checkpoint] = uphillElevation;
+                checkpointDownhill[checkpoint] = downhillElevation;
+                checkpointAltitude[checkpoint] = nextAltitude;
+                checkpointPastFilter[checkpoint] = pastFilter;
+            }
+        }
+        //assign remaining altitude of point 0 because we have no values at 0 because we read 1 point ahead.
+        uphill[0] = uphill[1];
+        downhill[0] = downhill[1];
+        return new RemainingElevation(uphill, downhill, checkpointUphill, checkpointDownhill,
+                checkpointAltitude, checkpointPastFilter, size - resumeIndex);
+    }
+
+    /**
+     * @return number of full chunks from the track end with the same hash, these have checkpoints in both
+     */
+    static int countReusableChunks(@NonNull long[] chunkHashes, int pointCount,
+                                   @NonNull long[] previousChunkHashes, int previousPointCount) {
+        int fullChunks = Math.min(pointCount, previousPointCount) / TrackHash.CHUNK_SIZE;
+        int chunk = 0;
+        while ((chunk < fullChunks) && (chunkHashes[chunk] == previousChunkHashes[chunk])) {
+            chunk++;
+        }
+        return chunk;
+    }
+
+    void write(@NonNull DataOutputStream out) throws IOException {
+        TrackData.writeInts(out, mUphill);
+        TrackData.writeInts(out, mDownhill);
+        TrackData.writeDoubles(out, mCheckpointUphill);
+        TrackData.writeDoubles(out, mCheckpointDownhill);
+        TrackData.writeDoubles(out, mCheckpointAltitude);
+        for (boolean pastFilter : mCheckpointPastFilter) {
+            out.writeBoolean(pastFilter);
+        }
+    }
+
+    @NonNull
+    static RemainingElevation read(@NonNull ByteBuffer buffer, int pointCount) {
+        int checkpointCount = (pointCount / TrackHash.CHUNK_SIZE) + 1;
+        int[] uphill = TrackData.readInts(buffer, pointCount + 1);
+        int[] downhill = TrackData.readInts(buffer, pointCount + 1);
+        double[] checkpointUphill = TrackData.readDoubles(buffer, checkpointCount);
+        double[] checkpointDownhill = TrackData.readDoubles(buffer, checkpointCount);
+        double[] checkpointAltitude = TrackData.readDoubles(buffer, checkpointCount);
+        boolean[] checkpointPastFilter = new boolean[checkpointCount];
+        for (int i = 0; i < checkpointCount; i++) {
+            checkpointPastFilter[i] = buffer.get() != 0;
+        }
+        return new RemainingElevation(uphill, downhill, checkpointUphill, checkpointDownhill,
+                checkpointAltitude, checkpointPastFilter, 0);
+    }
+}
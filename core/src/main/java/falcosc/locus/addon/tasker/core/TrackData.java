@@ -0,0 +1,405 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import locus.api.objects.extra.Location;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Precalculated navigation data of the guided track.
+ * Only primitive columns are kept, so the Track and its Location objects can be collected.
+ */
+public class TrackData {
+
+    //Locus guide points reference track points, the tolerance is for copies with rounded coordinates
+    public static final double DEFAULT_MATCH_TOLERANCE_METERS = 10.0;
+    public static final double DEFAULT_MIN_CLIMB_GAIN_METERS = 30.0;
+    public static final double DEFAULT_MIN_CLIMB_GRADE_PERCENT = 3.0;
+    private static final double[] EMPTY = new double[0];
+    private static final int NULL_STRING = -1;
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    public final long mTrackId;
+    @Nullable
+    public final String mTrackName;
+    public final boolean mHasAltitude;
+    public final long mContentHash;
+    public int mPreviousFoundIndex;
+
+    private final boolean mHasTrack;
+    private final double[] mLats;
+    private final double[] mLons;
+    private final double[] mAltitudes;
+    //distance from the track start, remaining distances are a subtraction
+    private final double[] mDistances;
+    private final long[] mChunkHashes;
+    private final RemainingElevation mRemainingElevation;
+    private final ClimbIndex mClimbs;
+    @Nullable
+    private final TrackPointIndex mPointIndex;
+
+    public TrackData(@Nullable Track track) {
+        this(track, DEFAULT_MATCH_TOLERANCE_METERS, null);
+    }
+
+    public TrackData(@Nullable Track track, double matchToleranceMeters) {
+        this(track, matchToleranceMeters, null);
+    }
+
+    /**
+     * @param matchToleranceMeters max distance of guide points to the track, 0 for exact matches only
+     * @param previous data of an older version of this track, the unchanged end of the track is reused
+     */
+    public TrackData(@Nullable Track track, double matchToleranceMeters, @Nullable TrackData previous) {
+        this(track, matchToleranceMeters, DEFAULT_MIN_CLIMB_GAIN_METERS, DEFAULT_MIN_CLIMB_GRADE_PERCENT, previous);
+    }
+
+    /**
+     * @param minClimbGainMeters climbs with less elevation gain are ignored
+     * @param minClimbGradePercent climbs with a lower average grade are ignored
+     */
+    public TrackData(@Nullable Track track, double matchToleranceMeters, double minClimbGainMeters, double minClimbGradePercent,
+                     @Nullable TrackData previous) {
+        if (track == null) {
+            mHasTrack = false;
+            mTrackId = -1L;
+            mTrackName = null;
+            mHasAltitude = false;
+            mLats = EMPTY;
+            mLons = EMPTY;
+            mAltitudes = EMPTY;
+            mDistances = EMPTY;
+            mChunkHashes = new long[0];
+            mContentHash = 0L;
+            mRemainingElevation = RemainingElevation.calculate(EMPTY, null, 0);
+            mClimbs = ClimbIndex.detect(EMPTY, EMPTY, minClimbGainMeters, minClimbGradePercent);
+            mPointIndex = null;
+            return;
+        }
+
+        List<Location> points = track.getPoints();
+        int size = points.size();
+        mHasTrack = true;
+        mTrackId = track.getId();
+        mTrackName = track.getName();
+        mHasAltitude = (size > 0) && points.get(0).getHasAltitude();
+        mLats = new double[size];
+        mLons = new double[size];
+        mAltitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            Location loc = points.get(i);
+            mLats[i] = loc.getLatitude();
+            mLons[i] = loc.getLongitude();
+            mAltitudes[i] = loc.getAltitude();
+        }
+        mDistances = cumulativeDistances(mLats, mLons);
+        mChunkHashes = TrackHash.chunkHashes(mLats, mLons, mAltitudes);
+        mContentHash = TrackHash.combine(mChunkHashes);
+
+        int reusedChunks = 0;
+        if ((previous != null) && previous.mHasTrack && (previous.mTrackId == mTrackId)) {
+            reusedChunks = RemainingElevation.countReusableChunks(mChunkHashes, size,
+                    previous.mChunkHashes, previous.getPointCount());
+        }
+        mRemainingElevation = RemainingElevation.calculate(mAltitudes,
+                (reusedChunks > 0) ? previous.mRemainingElevation : null, reusedChunks);
+        mClimbs = ClimbIndex.detect(mAltitudes, mDistances, minClimbGainMeters, minClimbGradePercent);
+        mPointIndex = new TrackPointIndex(mLats, mLons, matchToleranceMeters);
+    }
+
+    @SuppressWarnings("ConstructorWithTooManyParameters")
+    private TrackData(long trackId, @Nullable String trackName, boolean hasAltitude, long contentHash,
+                      @NonNull double[] lats, @NonNull double[] lons, @NonNull double[] altitudes, @NonNull double[] distances,
+                      @NonNull long[] chunkHashes, @NonNull RemainingElevation remainingElevation, @NonNull ClimbIndex climbs,
+                      @NonNull TrackPointIndex pointIndex) {
+        mHasTrack = true;
+        mTrackId = trackId;
+        mTrackName = trackName;
+        mHasAltitude = hasAltitude;
+        mContentHash = contentHash;
+        mLats = lats;
+        mLons = lons;
+        mAltitudes = altitudes;
+        mDistances = distances;
+        mChunkHashes = chunkHashes;
+        mRemainingElevation = remainingElevation;
+        mClimbs = climbs;
+        mPointIndex = pointIndex;
+    }
+
+    /**
+     * Writes everything except the key of {@link TrackDataStore}
+     */
+    void write(@NonNull DataOutputStream out) throws IOException {
+        if (mTrackName == null) {
+            out.writeInt(NULL_STRING);
+        } else {
+            byte[] name = mTrackName.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+        }
+        out.writeBoolean(mHasAltitude);
+        writeDoubles(out, mLats);
+        writeDoubles(out, mLons);
+        writeDoubles(out, mAltitudes);
+        writeDoubles(out, mDistances);
+        for (long chunkHash : mChunkHashes) {
+            out.writeLong(chunkHash);
+        }
+        mRemainingElevation.write(out);
+        mClimbs.write(out);
+        //noinspection ConstantConditions has track, so it has an index
+        mPointIndex.write(out);
+    }
+
+    @NonNull
+    static TrackData read(@NonNull ByteBuffer buffer, long trackId, int pointCount, double matchToleranceMeters,
+                          double minClimbGainMeters, double minClimbGradePercent, long contentHash) {
+        int nameLength = buffer.getInt();
+        String trackName = null;
+        if (nameLength != NULL_STRING) {
+            if ((nameLength < 0) || (nameLength > buffer.remaining())) {
+                throw new IllegalArgumentException("invalid name length " + nameLength); //NON-NLS
+            }
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            trackName = new String(name, StandardCharsets.UTF_8);
+        }
+        boolean hasAltitude = buffer.get() != 0;
+        double[] lats = readDoubles(buffer, pointCount);
+        double[] lons = readDoubles(buffer, pointCount);
+        double[] altitudes = readDoubles(buffer, pointCount);
+        double[] distances = readDoubles(buffer, pointCount);
+        long[] chunkHashes = readLongs(buffer, TrackHash.chunkCount(pointCount));
+        RemainingElevation remainingElevation = RemainingElevation.read(buffer, pointCount);
+        ClimbIndex climbs = ClimbIndex.read(buffer, pointCount);
+        if (!climbs.hasThresholds(minClimbGainMeters, minClimbGradePercent)) {
+            //cheap compared to the other parts, no need to drop the file
+            climbs = ClimbIndex.detect(altitudes, distances, minClimbGainMeters, minClimbGradePercent);
+        }
+        TrackPointIndex pointIndex = TrackPointIndex.read(buffer, lats, lons, matchToleranceMeters);
+        return new TrackData(trackId, trackName, hasAltitude, contentHash,
+                lats, lons, altitudes, distances, chunkHashes, remainingElevation, climbs, pointIndex);
+    }
+
+    @NonNull
+    private static double[] cumulativeDistances(@NonNull double[] lats, @NonNull double[] lons) {
+        double[] distances = new double[lats.length];
+        for (int i = 1; i < lats.length; i++) {
+            distances[i] = distances[i - 1] + distanceMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+        }
+        return distances;
+    }
+
+    /**
+     * Haversine distance on a sphere
+     */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2.0);
+        double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2.0);
+        double a = (sinLat * sinLat) + (Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon);
+        return 2.0 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    static void writeDoubles(@NonNull DataOutputStream out, @NonNull double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    static void writeInts(@NonNull DataOutputStream out, @NonNull int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    @NonNull
+    static double[] readDoubles(@NonNull ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        //bulk copy, the position of the view isn't shared with the buffer
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + (count * Double.BYTES));
+        return values;
+    }
+
+    @NonNull
+    static int[] readInts(@NonNull ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + (count * Integer.BYTES));
+        return values;
+    }
+
+    @NonNull
+    static long[] readLongs(@NonNull ByteBuffer buffer, int count) {
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + (count * Long.BYTES));
+        return values;
+    }
+
+    public boolean hasTrack() {
+        return mHasTrack;
+    }
+
+    /**
+     * Edits in Locus keep the track id and often the point count, only the content hash shows a moved or changed point
+     *
+     * @return true if the track has the same id and the same points as this data
+     */
+    public boolean hasSameContent(@NonNull Track track) {
+        return mHasTrack && (mTrackId == track.getId()) && (getPointCount() == track.getPointsCount())
+                && (mContentHash == TrackHash.hash(track.getPoints()));
+    }
+
+    /**
+     * @param contentHash {@link #computeContentHash} of the track, so one load hashes the points only once
+     */
+    public boolean hasSameContent(@NonNull Track track, long contentHash) {
+        return mHasTrack && (mTrackId == track.getId()) && (getPointCount() == track.getPointsCount())
+                && (mContentHash == contentHash);
+    }
+
+    /**
+     * @return hash of all track points which is compared with {@link #mContentHash}
+     */
+    public static long computeContentHash(@NonNull Track track) {
+        return TrackHash.hash(track.getPoints());
+    }
+
+    public double getMatchTolerance() {
+        return (mPointIndex == null) ? 0.0 : mPointIndex.getToleranceMeters();
+    }
+
+    /**
+     * @return true if the point index uses this match tolerance and the climbs were detected with these thresholds
+     */
+    public boolean isPreparedWith(double matchToleranceMeters, double minClimbGainMeters, double minClimbGradePercent) {
+        return (Double.compare(getMatchTolerance(), Math.max(0.0, matchToleranceMeters)) == 0)
+                && hasClimbThresholds(minClimbGainMeters, minClimbGradePercent);
+    }
+
+    /**
+     * @return true if the climbs were detected with these thresholds
+     */
+    public boolean hasClimbThresholds(double minClimbGainMeters, double minClimbGradePercent) {
+        return mClimbs.hasThresholds(minClimbGainMeters, minClimbGradePercent);
+    }
+
+    public int getPointCount() {
+        return mLats.length;
+    }
+
+    /**
+     * @return number of points at the track end whose remaining elevation was taken from the previous data
+     */
+    public int getReusedPointCount() {
+        return mRemainingElevation.mReusedPoints;
+    }
+
+    public int getRemainingUphill(int pointIndex) {
+        return mRemainingElevation.mUphill[pointIndex];
+    }
+
+    public int getRemainingDownhill(int pointIndex) {
+        return mRemainingElevation.mDownhill[pointIndex];
+    }
+
+    public int getTotalUphill() {
+        return mRemainingElevation.mUphill[0];
+    }
+
+    public int getTotalDownhill() {
+        return mRemainingElevation.mDownhill[0];
+    }
+
+    public double getTotalDistance() {
+        return (mDistances.length == 0) ? 0.0 : mDistances[mDistances.length - 1];
+    }
+
+    /**
+     * @return distance along the track between two points in meters, negative if the second point is before the first
+     */
+    public double getDistanceBetween(int fromPointIndex, int toPointIndex) {
+        return mDistances[toPointIndex] - mDistances[fromPointIndex];
+    }
+
+    /**
+     * @return distance along the track from the point to the track end in meters
+     */
+    public double getRemainingDistance(int pointIndex) {
+        return getTotalDistance() - mDistances[pointIndex];
+    }
+
+    /**
+     * @return direct distance of the location to the track point in meters
+     */
+    public double getDistanceToPoint(int pointIndex, @NonNull Location location) {
+        return distanceMeters(location.getLatitude(), location.getLongitude(), mLats[pointIndex], mLons[pointIndex]);
+    }
+
+    /**
+     * Binary search in the climbs which were detected when this data was built
+     *
+     * @return climb number of the first climb which starts at or after the point or -1
+     */
+    public int findNextClimb(int pointIndex) {
+        return mClimbs.findNext(pointIndex);
+    }
+
+    /**
+     * @return climb number of the climb which contains the point or -1
+     */
+    public int findCurrentClimb(int pointIndex) {
+        return mClimbs.findCurrent(pointIndex);
+    }
+
+    public int getClimbStartIndex(int climb) {
+        return mClimbs.mStarts[climb];
+    }
+
+    public int getClimbTopIndex(int climb) {
+        return mClimbs.mTops[climb];
+    }
+
+    /**
+     * @return altitude difference between start and top of the climb in meters
+     */
+    public double getClimbGain(int climb) {
+        return mAltitudes[mClimbs.mTops[climb]] - mAltitudes[mClimbs.mStarts[climb]];
+    }
+
+    public double getClimbLength(int climb) {
+        return getDistanceBetween(mClimbs.mStarts[climb], mClimbs.mTops[climb]);
+    }
+
+    /**
+     * @return average grade of the climb in percent
+     */
+    public double getClimbGrade(int climb) {
+        return (getClimbGain(climb) / getClimbLength(climb)) * 100.0;
+    }
+
+    public double getAltitude(int pointIndex) {
+        return mAltitudes[pointIndex];
+    }
+
+    /**
+     * Exact matches close to the previous found index are checked first, otherwise the grid index
+     * returns the nearest point within the tolerance
+     *
+     * @return index of the matching track point or -1
+     */
+    public int findMatchingPointIndex(@Nullable Location current) {
+        if ((current == null) || (mPointIndex == null)) {
+            return -1;
+        }
+        return mPointIndex.findMatchingPointIndex(current.getLatitude(), current.getLongitude(), mPreviousFoundIndex);
+    }
+}
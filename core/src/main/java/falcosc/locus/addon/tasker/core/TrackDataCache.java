@@ -0,0 +1,151 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Prepared TrackData of recently guided tracks, keyed by track id and content hash.
+ * The least recently used entries are dropped if the total point count exceeds the limit.
+ */
+public final class TrackDataCache {
+
+    private static final class Key {
+        final long mTrackId;
+        final long mContentHash;
+
+        Key(long trackId, long contentHash) {
+            mTrackId = trackId;
+            mContentHash = contentHash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (mTrackId == other.mTrackId) && (mContentHash == other.mContentHash);
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = (mTrackId * 31L) + mContentHash;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    private final long mMaxPoints;
+    //access order, the first entry is the least recently used one
+    private final LinkedHashMap<Key, TrackData> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mPointCount;
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    public TrackDataCache(long maxPoints) {
+        mMaxPoints = maxPoints;
+    }
+
+    @Nullable
+    public TrackData get(@NonNull Track track, double matchToleranceMeters) {
+        return get(track, matchToleranceMeters, TrackData.DEFAULT_MIN_CLIMB_GAIN_METERS, TrackData.DEFAULT_MIN_CLIMB_GRADE_PERCENT);
+    }
+
+    /**
+     * @return cached data if content, match tolerance and climb thresholds are the same, null otherwise
+     */
+    @Nullable
+    public TrackData get(@NonNull Track track, double matchToleranceMeters, double minClimbGainMeters, double minClimbGradePercent) {
+        return get(track.getId(), TrackHash.hash(track.getPoints()), matchToleranceMeters, minClimbGainMeters, minClimbGradePercent);
+    }
+
+    /**
+     * @param contentHash {@link TrackData#computeContentHash} of the track
+     */
+    @Nullable
+    public TrackData get(long trackId, long contentHash, double matchToleranceMeters, double minClimbGainMeters,
+                         double minClimbGradePercent) {
+        Key key = new Key(trackId, contentHash);
+        TrackData data;
+        synchronized (this) {
+            data = mEntries.get(key);
+        }
+        if ((data == null) || !data.isPreparedWith(matchToleranceMeters, minClimbGainMeters, minClimbGradePercent)) {
+            mMisses.incrementAndGet();
+            return null;
+        }
+        mHits.incrementAndGet();
+        return data;
+    }
+
+    /**
+     * Doesn't check the content, the caller has to validate it against the current track
+     *
+     * @return most recently used data of this track id or null
+     */
+    @Nullable
+    public synchronized TrackData getLatest(long trackId) {
+        Key latest = null;
+        for (Key key : mEntries.keySet()) {
+            if (key.mTrackId == trackId) {
+                latest = key;
+            }
+        }
+        return (latest != null) ? mEntries.get(latest) : null;
+    }
+
+    /**
+     * Adds or replaces the data and drops least recently used entries above the point limit, the new entry is kept
+     */
+    public synchronized void put(@NonNull TrackData data) {
+        if (!data.hasTrack()) {
+            return;
+        }
+        TrackData replaced = mEntries.put(new Key(data.mTrackId, data.mContentHash), data);
+        if (replaced != null) {
+            mPointCount -= replaced.getPointCount();
+        }
+        mPointCount += data.getPointCount();
+
+        Iterator<TrackData> iterator = mEntries.values().iterator();
+        while ((mPointCount > mMaxPoints) && (mEntries.size() > 1)) {
+            TrackData eldest = iterator.next();
+            iterator.remove();
+            mPointCount -= eldest.getPointCount();
+        }
+    }
+
+    public synchronized void clear() {
+        mEntries.clear();
+        mPointCount = 0L;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized long getPointCount() {
+        return mPointCount;
+    }
+
+    public long getHits() {
+        return mHits.get();
+    }
+
+    public long getMisses() {
+        return mMisses.get();
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "track_data_cache entries=" + mEntries.size() //NON-NLS
+                + " points=" + mPointCount //NON-NLS
+                + " hits=" + mHits.get() //NON-NLS
+                + " misses=" + mMisses.get(); //NON-NLS
+    }
+}
@@ -0,0 +1,158 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import locus.api.objects.geoData.Track;
+
+/**
+ * Computed TrackData in the cache folder, one file per track id. Files are memory mapped on reuse and the
+ * least recently used files get deleted if the folder exceeds its size limit.
+ */
+public final class TrackDataStore {
+
+    private static final int MAGIC = 0x54524b44; //TRKD
+    private static final int FORMAT_VERSION = 5;
+    private static final String FILE_SUFFIX = ".bin"; //NON-NLS
+
+    private final File mDir;
+    private final long mMaxBytes;
+
+    public TrackDataStore(@NonNull File dir, long maxBytes) {
+        mDir = dir;
+        mMaxBytes = maxBytes;
+    }
+
+    @Nullable
+    public TrackData load(@NonNull Track track, double matchToleranceMeters) throws IOException {
+        return load(track, matchToleranceMeters, TrackData.DEFAULT_MIN_CLIMB_GAIN_METERS, TrackData.DEFAULT_MIN_CLIMB_GRADE_PERCENT);
+    }
+
+    /**
+     * Climbs of other thresholds are detected again from the stored data
+     *
+     * @return stored data if id, point count, content and match tolerance are the same, null otherwise
+     * @throws IOException if the file can't be read, it gets deleted
+     */
+    @Nullable
+    public TrackData load(@NonNull Track track, double matchToleranceMeters, double minClimbGainMeters,
+                          double minClimbGradePercent) throws IOException {
+        return load(track, TrackHash.hash(track.getPoints()), matchToleranceMeters, minClimbGainMeters, minClimbGradePercent);
+    }
+
+    /**
+     * @param contentHash {@link TrackData#computeContentHash} of the track
+     * @throws IOException if the file can't be read, it gets deleted
+     */
+    @Nullable
+    public TrackData load(@NonNull Track track, long contentHash, double matchToleranceMeters, double minClimbGainMeters,
+                          double minClimbGradePercent) throws IOException {
+        File file = getFile(track.getId());
+        if (!file.isFile()) {
+            return null;
+        }
+
+        TrackData data;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            if ((buffer.getInt() != MAGIC) || (buffer.getInt() != FORMAT_VERSION)
+                    || (buffer.getLong() != track.getId())
+                    || (buffer.getInt() != track.getPointsCount())
+                    || (Double.compare(buffer.getDouble(), Math.max(0.0, matchToleranceMeters)) != 0)
+                    || (buffer.getLong() != contentHash)) {
+                return null;
+            }
+            data = TrackData.read(buffer, track.getId(), track.getPointsCount(), matchToleranceMeters,
+                    minClimbGainMeters, minClimbGradePercent, contentHash);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            throw new IOException("Corrupt track data " + file, e); //NON-NLS
+        }
+
+        //last modified is the LRU order
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return data;
+    }
+
+    /**
+     * Replaces the file of this track id and deletes least recently used files above the size limit
+     */
+    public void save(@NonNull TrackData data) throws IOException {
+        if (!data.hasTrack()) {
+            return;
+        }
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            throw new IOException("Can't create " + mDir); //NON-NLS
+        }
+
+        File file = getFile(data.mTrackId);
+        File tmpFile = new File(file.getPath() + ".tmp"); //NON-NLS
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(data.mTrackId);
+            out.writeInt(data.getPointCount());
+            out.writeDouble(data.getMatchTolerance());
+            out.writeLong(data.mContentHash);
+            data.write(out);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            throw e;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            throw new IOException("Can't replace " + file); //NON-NLS
+        }
+        evict();
+    }
+
+    private void evict() {
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long totalBytes = 0L;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        if (totalBytes <= mMaxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        //keep the newest file even if it is larger than the limit
+        for (int i = 0; (i < (files.length - 1)) && (totalBytes > mMaxBytes); i++) {
+            long length = files[i].length();
+            if (files[i].delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    @NonNull
+    private File getFile(long trackId) {
+        return new File(mDir, trackId + FILE_SUFFIX);
+    }
+}
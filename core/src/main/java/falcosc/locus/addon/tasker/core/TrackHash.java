@@ -0,0 +1,76 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import locus.api.objects.extra.Location;
+
+/**
+ * 64 bit content hash over the coordinates and altitudes of track points.
+ * Points are hashed in chunks which are aligned to the track end, so changed ranges can be found by comparing chunks.
+ */
+final class TrackHash {
+
+    static final int CHUNK_SIZE = 256;
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private TrackHash() {
+    }
+
+    static int chunkCount(int pointCount) {
+        return (pointCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * @return hash of each chunk, index 0 is the chunk at the track end, the last chunk may be shorter
+     */
+    @NonNull
+    static long[] chunkHashes(@NonNull double[] lats, @NonNull double[] lons, @NonNull double[] alts) {
+        int size = lats.length;
+        long[] hashes = new long[chunkCount(size)];
+        for (int chunk = 0; chunk < hashes.length; chunk++) {
+            int end = size - (chunk * CHUNK_SIZE);
+            long hash = SEED;
+            for (int i = Math.max(0, end - CHUNK_SIZE); i < end; i++) {
+                hash = mix(hash, lats[i], lons[i], alts[i]);
+            }
+            hashes[chunk] = hash;
+        }
+        return hashes;
+    }
+
+    static long combine(@NonNull long[] chunkHashes) {
+        long hash = SEED;
+        for (long chunkHash : chunkHashes) {
+            hash = (hash ^ chunkHash) * MULTIPLIER;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    /**
+     * Same as {@link #combine} of the {@link #chunkHashes} without copying the points
+     */
+    static long hash(@NonNull List<Location> points) {
+        int size = points.size();
+        long[] hashes = new long[chunkCount(size)];
+        for (int chunk = 0; chunk < hashes.length; chunk++) {
+            int end = size - (chunk * CHUNK_SIZE);
+            long hash = SEED;
+            for (int i = Math.max(0, end - CHUNK_SIZE); i < end; i++) {
+                Location loc = points.get(i);
+                hash = mix(hash, loc.getLatitude(), loc.getLongitude(), loc.getAltitude());
+            }
+            hashes[chunk] = hash;
+        }
+        return combine(hashes);
+    }
+
+    private static long mix(long hash, double lat, double lon, double alt) {
+        hash = (hash ^ Double.doubleToLongBits(lat)) * MULTIPLIER;
+        hash = (hash ^ Double.doubleToLongBits(lon)) * MULTIPLIER;
+        hash = (hash ^ Double.doubleToLongBits(alt)) * MULTIPLIER;
+        return hash ^ (hash >>> 29);
+    }
+}
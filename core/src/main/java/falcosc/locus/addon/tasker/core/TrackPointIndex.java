@@ -0,0 +1,198 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Uniform grid over the track points for on-track lookups which don't depend on the track length.
+ * Cells are stored as sorted keys with the point indices of each cell in ascending order.
+ * Longitude wrap around at 180 degrees is not handled, tracks crossing it only lose matches at the seam.
+ */
+public final class TrackPointIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    //smaller cells don't make the lookup faster, they just need more keys
+    private static final double MIN_CELL_METERS = 10.0;
+    //points ahead of the previous index which are checked for an exact match before the grid is used
+    private static final int LOCAL_SCAN_AHEAD = 16;
+    //go back 5 points in case of wrong position
+    private static final int LOCAL_SCAN_BEHIND = 5;
+
+    private final double[] mLats;
+    private final double[] mLons;
+    private final double mToleranceMeters;
+    private final double mCellLat;
+    private final double mCellLon;
+    private final double mLonScale;
+    private final long[] mCellKeys;
+    private final int[] mCellStart;
+    private final int[] mCellPoints;
+
+    /**
+     * @param toleranceMeters max distance of a matching point, 0 for exact matches only
+     */
+    public TrackPointIndex(@NonNull double[] lats, @NonNull double[] lons, double toleranceMeters) {
+        mLats = lats;
+        mLons = lons;
+        mToleranceMeters = Math.max(0.0, toleranceMeters);
+
+        double refLat = (lats.length > 0) ? lats[lats.length / 2] : 0.0;
+        mLonScale = Math.max(0.01, Math.cos(Math.toRadians(refLat)));
+        //cells have to be at least as large as the tolerance, so the 3x3 neighbourhood contains every match
+        double cellMeters = Math.max(MIN_CELL_METERS, mToleranceMeters);
+        mCellLat = cellMeters / METERS_PER_DEGREE;
+        mCellLon = mCellLat / mLonScale;
+
+        int size = lats.length;
+        long[] pointKeys = new long[size];
+        for (int i = 0; i < size; i++) {
+            pointKeys[i] = cellKey(cellRow(lats[i]), cellColumn(lons[i]));
+        }
+        long[] sortedKeys = pointKeys.clone();
+        Arrays.sort(sortedKeys);
+        int cellCount = 0;
+        for (int i = 0; i < size; i++) {
+            if ((i == 0) || (sortedKeys[i] != sortedKeys[i - 1])) {
+                sortedKeys[cellCount++] = sortedKeys[i];
+            }
+        }
+        mCellKeys = Arrays.copyOf(sortedKeys, cellCount);
+
+        //counting sort of the point indices by cell, each cell keeps the track order
+        int[] pointCells = new int[size];
+        mCellStart = new int[cellCount + 1];
+        for (int i = 0; i < size; i++) {
+            pointCells[i] = Arrays.binarySearch(mCellKeys, pointKeys[i]);
+            mCellStart[pointCells[i] + 1]++;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            mCellStart[cell + 1] += mCellStart[cell];
+        }
+        mCellPoints = new int[size];
+        int[] fill = Arrays.copyOf(mCellStart, cellCount);
+        for (int i = 0; i < size; i++) {
+            mCellPoints[fill[pointCells[i]]++] = i;
+        }
+    }
+
+    @SuppressWarnings("ConstructorWithTooManyParameters")
+    private TrackPointIndex(@NonNull double[] lats, @NonNull double[] lons, double toleranceMeters,
+                            double cellLat, double cellLon, double lonScale,
+                            @NonNull long[] cellKeys, @NonNull int[] cellStart, @NonNull int[] cellPoints) {
+        mLats = lats;
+        mLons = lons;
+        mToleranceMeters = toleranceMeters;
+        mCellLat = cellLat;
+        mCellLon = cellLon;
+        mLonScale = lonScale;
+        mCellKeys = cellKeys;
+        mCellStart = cellStart;
+        mCellPoints = cellPoints;
+    }
+
+    /**
+     * Writes the grid, the point columns are written by the owner
+     */
+    void write(@NonNull DataOutputStream out) throws IOException {
+        out.writeDouble(mCellLat);
+        out.writeDouble(mCellLon);
+        out.writeDouble(mLonScale);
+        out.writeInt(mCellKeys.length);
+        for (long cellKey : mCellKeys) {
+            out.writeLong(cellKey);
+        }
+        TrackData.writeInts(out, mCellStart);
+        TrackData.writeInts(out, mCellPoints);
+    }
+
+    @NonNull
+    static TrackPointIndex read(@NonNull ByteBuffer buffer, @NonNull double[] lats, @NonNull double[] lons, double toleranceMeters) {
+        double cellLat = buffer.getDouble();
+        double cellLon = buffer.getDouble();
+        double lonScale = buffer.getDouble();
+        int cellCount = buffer.getInt();
+        if ((cellCount < 0) || (cellCount > lats.length)) {
+            throw new IllegalArgumentException("invalid cell count " + cellCount); //NON-NLS
+        }
+        long[] cellKeys = TrackData.readLongs(buffer, cellCount);
+        int[] cellStart = TrackData.readInts(buffer, cellCount + 1);
+        int[] cellPoints = TrackData.readInts(buffer, lats.length);
+        return new TrackPointIndex(lats, lons, toleranceMeters, cellLat, cellLon, lonScale, cellKeys, cellStart, cellPoints);
+    }
+
+    public double getToleranceMeters() {
+        return mToleranceMeters;
+    }
+
+    /**
+     * Exact matches close to the previous index are found without the grid.
+     * Otherwise the nearest point within the tolerance wins, on equal distance the next point ahead of the
+     * previous index is preferred, then the closest point behind it.
+     *
+     * @return index of the matching track point or -1
+     */
+    @SuppressWarnings("FloatingPointEquality") //exact match because the location references the track point
+    public int findMatchingPointIndex(double lat, double lon, int previousIndex) {
+        int size = mLats.length;
+        if (size == 0) {
+            return -1;
+        }
+
+        int start = Math.min(Math.max(previousIndex - LOCAL_SCAN_BEHIND, 0), size - 1);
+        int localEnd = Math.min(start + LOCAL_SCAN_BEHIND + LOCAL_SCAN_AHEAD, size - 1);
+        for (int i = start; i <= localEnd; i++) {
+            if ((mLats[i] == lat) && (mLons[i] == lon)) {
+                return i;
+            }
+        }
+
+        double maxDistance = (mToleranceMeters / METERS_PER_DEGREE) * (mToleranceMeters / METERS_PER_DEGREE);
+        int row = cellRow(lat);
+        int column = cellColumn(lon);
+        int bestIndex = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int r = row - 1; r <= (row + 1); r++) {
+            for (int c = column - 1; c <= (column + 1); c++) {
+                int cell = Arrays.binarySearch(mCellKeys, cellKey(r, c));
+                if (cell < 0) {
+                    continue;
+                }
+                for (int p = mCellStart[cell]; p < mCellStart[cell + 1]; p++) {
+                    int index = mCellPoints[p];
+                    double dLat = mLats[index] - lat;
+                    double dLon = (mLons[index] - lon) * mLonScale;
+                    double distance = (dLat * dLat) + (dLon * dLon);
+                    if ((distance <= maxDistance) && ((distance < bestDistance)
+                            || ((distance == bestDistance) && isCloserToStart(index, bestIndex, start)))) {
+                        bestDistance = distance;
+                        bestIndex = index;
+                    }
+                }
+            }
+        }
+        return bestIndex;
+    }
+
+    private static boolean isCloserToStart(int index, int currentBest, int start) {
+        if (index >= start) {
+            return (currentBest < start) || (index < currentBest);
+        }
+        return (currentBest < start) && (index > currentBest);
+    }
+
+    private int cellRow(double lat) {
+        return (int) Math.floor(lat / mCellLat);
+    }
+
+    private int cellColumn(double lon) {
+        return (int) Math.floor(lon / mCellLon);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,63 @@
+package falcosc.locus.addon.tasker.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import locus.api.objects.extra.Location;
+
+/**
+ * Track points sorted by time for nearest time lookups
+ */
+public final class TrackTimeIndex {
+
+    private final List<Location> mPoints;
+    private final long[] mPointTimestamps;
+
+    /**
+     * @param points at least one point
+     */
+    public TrackTimeIndex(@NonNull List<Location> points) {
+        mPoints = new ArrayList<>(points);
+        Collections.sort(mPoints, new Comparator<Location>() {
+            @Override
+            public int compare(Location loc1, Location loc2) {
+                return Long.compare(loc1.getTime(), loc2.getTime());
+            }
+        });
+        mPointTimestamps = new long[mPoints.size()];
+        for (int i = 0; i < mPointTimestamps.length; i++) {
+            mPointTimestamps[i] = mPoints.get(i).getTime();
+        }
+    }
+
+    public int size() {
+        return mPointTimestamps.length;
+    }
+
+    @NonNull
+    public Location findNearestLocation(long time) {
+        int index = Arrays.binarySearch(mPointTimestamps, time);
+        if (index >= 0) {
+            //direct match
+            return mPoints.get(index);
+        }
+
+        index = -index - 1;
+        if (index == 0) {
+            // smaller than any
+            return mPoints.get(0);
+        } else if (index >= mPointTimestamps.length) {
+            // larger than any
+            return mPoints.get(mPointTimestamps.length - 1);
+        }
+
+        //index larger then time and index-1 is smaller then time
+        return ((mPointTimestamps[index] - time) < (time - mPointTimestamps[index - 1]))
+                ? mPoints.get(index)  //index is closer then index-1
+                : mPoints.get(index - 1);
+    }
+}
@@ -0,0 +1,92 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClimbIndexTest {
+
+    private static final double POINT_SPACING_METERS = 10.0;
+    private static final double DELTA = 1.0e-9;
+
+    /**
+     * Altitude profile with one point per 10 m, each segment adds its altitude change per point
+     */
+    private static double[] profile(double startAltitude, double[][] segments) {
+        int count = 1;
+        for (double[] segment : segments) {
+            count += (int) segment[0];
+        }
+        double[] altitudes = new double[count];
+        altitudes[0] = startAltitude;
+        int i = 1;
+        for (double[] segment : segments) {
+            for (int j = 0; j < (int) segment[0]; j++, i++) {
+                altitudes[i] = altitudes[i - 1] + segment[1];
+            }
+        }
+        return altitudes;
+    }
+
+    private static double[] distances(int count) {
+        double[] distances = new double[count];
+        for (int i = 0; i < count; i++) {
+            distances[i] = i * POINT_SPACING_METERS;
+        }
+        return distances;
+    }
+
+    private static double grade(ClimbIndex climbs, double[] altitudes, double[] distances) {
+        int start = climbs.mStarts[0];
+        int top = climbs.mTops[0];
+        return ((altitudes[top] - altitudes[start]) / (distances[top] - distances[start])) * 100.0;
+    }
+
+    @Test
+    public void flatSummitEndsAtFirstTopPoint() {
+        //100 m over 1 km, then 50 points on the summit before the descent
+        double[] altitudes = profile(500.0, new double[][]{{100, 1.0}, {50, 0.0}, {50, -1.0}});
+        double[] distances = distances(altitudes.length);
+
+        ClimbIndex climbs = ClimbIndex.detect(altitudes, distances, 30.0, 3.0);
+
+        assertEquals(1, climbs.size());
+        assertEquals(0, climbs.mStarts[0]);
+        assertEquals(100, climbs.mTops[0]);
+        assertEquals(1000.0, distances[climbs.mTops[0]] - distances[climbs.mStarts[0]], DELTA);
+        assertEquals(10.0, grade(climbs, altitudes, distances), DELTA);
+    }
+
+    @Test
+    public void flatValleyStartsAtLastLowPoint() {
+        //50 flat points before 100 m over 1 km and a flat summit at the end of the track
+        double[] altitudes = profile(500.0, new double[][]{{50, 0.0}, {100, 1.0}, {50, 0.0}});
+        double[] distances = distances(altitudes.length);
+
+        ClimbIndex climbs = ClimbIndex.detect(altitudes, distances, 30.0, 3.0);
+
+        assertEquals(1, climbs.size());
+        assertEquals(50, climbs.mStarts[0]);
+        assertEquals(150, climbs.mTops[0]);
+        assertEquals(10.0, grade(climbs, altitudes, distances), DELTA);
+    }
+
+    @Test
+    public void flatPartsBetweenClimbsDontLowerTheGrade() {
+        //two climbs of 50 m over 500 m separated by a 30 m descent and a flat valley
+        double[] altitudes = profile(500.0, new double[][]{
+                {50, 1.0}, {20, 0.0}, {30, -1.0}, {40, 0.0}, {50, 1.0}, {20, 0.0}});
+        double[] distances = distances(altitudes.length);
+
+        ClimbIndex climbs = ClimbIndex.detect(altitudes, distances, 30.0, 3.0);
+
+        assertEquals(2, climbs.size());
+        assertEquals(0, climbs.mStarts[0]);
+        assertEquals(50, climbs.mTops[0]);
+        assertEquals(140, climbs.mStarts[1]);
+        assertEquals(190, climbs.mTops[1]);
+        assertEquals(0, climbs.findCurrent(25));
+        assertEquals(-1, climbs.findCurrent(60));
+        assertEquals(1, climbs.findNext(60));
+    }
+}
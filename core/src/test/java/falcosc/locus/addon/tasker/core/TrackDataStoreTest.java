@@ -0,0 +1,198 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import locus.api.objects.extra.Location;
+import locus.api.objects.geoData.Track;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TrackDataStoreTest {
+
+    private static final double TOLERANCE_METERS = 10.0;
+    private static final int POINTS = 1000;
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private static Track randomTrack(long id, Random random) {
+        List<Location> points = new ArrayList<>(POINTS);
+        double lat = 47.0;
+        double lon = 11.0;
+        double altitude = 1000.0;
+        for (int i = 0; i < POINTS; i++) {
+            lat += random.nextGaussian() * 0.0001;
+            lon += random.nextGaussian() * 0.0001;
+            altitude += random.nextGaussian() * 3.0;
+            Location location = new Location(lat, lon);
+            location.setAltitude(altitude);
+            points.add(location);
+        }
+        Track track = new Track();
+        track.setId(id);
+        track.setPoints(points);
+        return track;
+    }
+
+    private static File createDir() throws IOException {
+        return Files.createTempDirectory("track-data-store").toFile(); //NON-NLS
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    private static File file(File dir, long trackId) {
+        return new File(dir, trackId + ".bin");
+    }
+
+    @Test
+    public void savedDataLoadsWithSameResult() throws IOException {
+        File dir = createDir();
+        try {
+            TrackDataStore store = new TrackDataStore(dir, NO_LIMIT);
+            Track track = randomTrack(1L, new Random(1L));
+            TrackData saved = new TrackData(track, TOLERANCE_METERS);
+            store.save(saved);
+
+            TrackData loaded = store.load(track, TOLERANCE_METERS);
+            assertNotNull(loaded);
+            assertEquals(saved.mContentHash, loaded.mContentHash);
+            assertEquals(saved.getPointCount(), loaded.getPointCount());
+            assertEquals(saved.getMatchTolerance(), loaded.getMatchTolerance(), 0.0);
+            for (int i = 0; i <= saved.getPointCount(); i++) {
+                assertEquals("uphill at " + i, saved.getRemainingUphill(i), loaded.getRemainingUphill(i));
+                assertEquals("downhill at " + i, saved.getRemainingDownhill(i), loaded.getRemainingDownhill(i));
+            }
+            for (int i = 0; i < saved.getPointCount(); i++) {
+                assertEquals("distance at " + i, saved.getRemainingDistance(i), loaded.getRemainingDistance(i), 0.0);
+                assertEquals("point " + i, saved.findMatchingPointIndex(track.getPoint(i)),
+                        loaded.findMatchingPointIndex(track.getPoint(i)));
+            }
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void otherToleranceOrContentDoesNotLoad() throws IOException {
+        File dir = createDir();
+        try {
+            TrackDataStore store = new TrackDataStore(dir, NO_LIMIT);
+            Track track = randomTrack(1L, new Random(2L));
+            store.save(new TrackData(track, TOLERANCE_METERS));
+
+            assertNull(store.load(track, TOLERANCE_METERS * 2.0));
+
+            List<Location> points = new ArrayList<>(track.getPoints());
+            Location changed = new Location(points.get(POINTS / 2));
+            changed.setAltitude(changed.getAltitude() + 7.0);
+            points.set(POINTS / 2, changed);
+            Track edited = new Track();
+            edited.setId(track.getId());
+            edited.setPoints(points);
+            assertNull(store.load(edited, TOLERANCE_METERS));
+
+            points.remove(0);
+            assertNull(store.load(edited, TOLERANCE_METERS));
+
+            //a miss keeps the file of the saved version
+            assertNotNull(store.load(track, TOLERANCE_METERS));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void corruptFileIsDeleted() throws IOException {
+        File dir = createDir();
+        try {
+            TrackDataStore store = new TrackDataStore(dir, NO_LIMIT);
+            Track track = randomTrack(1L, new Random(3L));
+            store.save(new TrackData(track, TOLERANCE_METERS));
+
+            File file = file(dir, track.getId());
+            try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) { //NON-NLS
+                truncate.setLength(truncate.length() / 2L);
+            }
+            try {
+                store.load(track, TOLERANCE_METERS);
+                fail("truncated file loaded"); //NON-NLS
+            } catch (IOException expected) {
+                assertFalse(file.exists());
+            }
+            assertNull(store.load(track, TOLERANCE_METERS));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFile() throws IOException {
+        File dir = createDir();
+        try {
+            Random random = new Random(4L);
+            Track track1 = randomTrack(1L, random);
+            Track track2 = randomTrack(2L, random);
+            Track track3 = randomTrack(3L, random);
+            TrackDataStore unlimited = new TrackDataStore(dir, NO_LIMIT);
+            unlimited.save(new TrackData(track1, TOLERANCE_METERS));
+            unlimited.save(new TrackData(track2, TOLERANCE_METERS));
+            long fileBytes = file(dir, 1L).length();
+
+            //track 1 is older, but loading it makes track 2 the least recently used one
+            long now = System.currentTimeMillis();
+            assertTrue(file(dir, 1L).setLastModified(now - 20000L));
+            assertTrue(file(dir, 2L).setLastModified(now - 10000L));
+            assertNotNull(unlimited.load(track1, TOLERANCE_METERS));
+
+            //room for two files
+            TrackDataStore store = new TrackDataStore(dir, (fileBytes * 5L) / 2L);
+            store.save(new TrackData(track3, TOLERANCE_METERS));
+            assertTrue(file(dir, 1L).exists());
+            assertFalse(file(dir, 2L).exists());
+            assertTrue(file(dir, 3L).exists());
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void keepsNewestFileAboveLimit() throws IOException {
+        File dir = createDir();
+        try {
+            Random random = new Random(5L);
+            TrackDataStore store = new TrackDataStore(dir, 1L);
+            Track track1 = randomTrack(1L, random);
+            store.save(new TrackData(track1, TOLERANCE_METERS));
+            assertTrue(file(dir, 1L).exists());
+
+            assertTrue(file(dir, 1L).setLastModified(System.currentTimeMillis() - 10000L));
+            Track track2 = randomTrack(2L, random);
+            store.save(new TrackData(track2, TOLERANCE_METERS));
+            assertFalse(file(dir, 1L).exists());
+            assertNotNull(store.load(track2, TOLERANCE_METERS));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+}
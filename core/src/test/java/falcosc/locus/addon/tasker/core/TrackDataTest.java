@@ -0,0 +1,151 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import locus.api.objects.extra.Location;
+import locus.api.objects.geoData.Track;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrackDataTest {
+
+    private static final long TRACK_ID = 1L;
+    private static final double TOLERANCE_METERS = 10.0;
+    //more than one hash chunk, so edits hit the first, a middle and the last chunk
+    private static final int[] SIZES = {1, 255, 256, 257, 1000, 3000};
+
+    private interface Edit {
+        void apply(List<Location> points, Random random);
+    }
+
+    private static final Edit PREPEND = (points, random) -> {
+        int count = 1 + random.nextInt(300);
+        for (int i = 0; i < count; i++) {
+            points.add(0, randomPoint(random));
+        }
+    };
+
+    private static final Edit APPEND = (points, random) -> {
+        int count = 1 + random.nextInt(300);
+        for (int i = 0; i < count; i++) {
+            points.add(randomPoint(random));
+        }
+    };
+
+    private static final Edit CHANGE_ALTITUDE = (points, random) -> {
+        int index = random.nextInt(points.size());
+        Location changed = new Location(points.get(index));
+        changed.setAltitude(changed.getAltitude() + 7.0);
+        points.set(index, changed);
+    };
+
+    private static final Edit DELETE = (points, random) -> {
+        if (points.size() > 1) {
+            points.remove(random.nextInt(points.size()));
+        }
+    };
+
+    private static Location randomPoint(Random random) {
+        Location location = new Location(47.0 + (random.nextDouble() * 0.01), 11.0 + (random.nextDouble() * 0.01));
+        location.setAltitude(1000.0 + (random.nextDouble() * 50.0));
+        return location;
+    }
+
+    private static Track track(List<Location> points) {
+        Track track = new Track();
+        track.setId(TRACK_ID);
+        track.setPoints(points);
+        return track;
+    }
+
+    private static void assertSameResult(TrackData expected, TrackData actual) {
+        assertEquals(expected.mContentHash, actual.mContentHash);
+        assertEquals(expected.getPointCount(), actual.getPointCount());
+        for (int i = 0; i <= expected.getPointCount(); i++) {
+            assertEquals("uphill at " + i, expected.getRemainingUphill(i), actual.getRemainingUphill(i));
+            assertEquals("downhill at " + i, expected.getRemainingDownhill(i), actual.getRemainingDownhill(i));
+        }
+        assertEquals(expected.getTotalDistance(), actual.getTotalDistance(), 0.0);
+    }
+
+    private static void assertIncrementalMatchesFullPass(Edit edit, long seed) {
+        Random random = new Random(seed);
+        for (int size : SIZES) {
+            List<Location> points = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                points.add(randomPoint(random));
+            }
+            TrackData previous = new TrackData(track(points), TOLERANCE_METERS);
+
+            List<Location> edited = new ArrayList<>(points);
+            edit.apply(edited, random);
+            Track editedTrack = track(edited);
+
+            TrackData full = new TrackData(editedTrack, TOLERANCE_METERS);
+            TrackData incremental = new TrackData(editedTrack, TOLERANCE_METERS, previous);
+            assertSameResult(full, incremental);
+            //data which reused an incremental result must not drift
+            assertSameResult(full, new TrackData(editedTrack, TOLERANCE_METERS, incremental));
+        }
+    }
+
+    @Test
+    public void prependedPointsMatchFullPass() {
+        assertIncrementalMatchesFullPass(PREPEND, 1L);
+    }
+
+    @Test
+    public void appendedPointsMatchFullPass() {
+        assertIncrementalMatchesFullPass(APPEND, 2L);
+    }
+
+    @Test
+    public void changedAltitudeMatchesFullPass() {
+        assertIncrementalMatchesFullPass(CHANGE_ALTITUDE, 3L);
+    }
+
+    @Test
+    public void deletedPointMatchesFullPass() {
+        assertIncrementalMatchesFullPass(DELETE, 4L);
+    }
+
+    @Test
+    public void unchangedTrackReusesAllFullChunks() {
+        Random random = new Random(5L);
+        List<Location> points = new ArrayList<>();
+        //only full chunks are reused
+        for (int i = 0; i < (4 * TrackHash.CHUNK_SIZE); i++) {
+            points.add(randomPoint(random));
+        }
+        TrackData previous = new TrackData(track(points), TOLERANCE_METERS);
+        TrackData incremental = new TrackData(track(new ArrayList<>(points)), TOLERANCE_METERS, previous);
+
+        assertEquals(points.size(), incremental.getReusedPointCount());
+        assertSameResult(previous, incremental);
+    }
+
+    @Test
+    public void sameContentDetectsEditWithSamePointCount() {
+        Random random = new Random(6L);
+        List<Location> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(randomPoint(random));
+        }
+        TrackData trackData = new TrackData(track(points), TOLERANCE_METERS);
+        assertTrue(trackData.hasSameContent(track(new ArrayList<>(points))));
+
+        List<Location> edited = new ArrayList<>(points);
+        CHANGE_ALTITUDE.apply(edited, random);
+        assertFalse(trackData.hasSameContent(track(edited)));
+
+        Track otherId = track(points);
+        otherId.setId(TRACK_ID + 1L);
+        assertFalse(trackData.hasSameContent(otherId));
+    }
+}
@@ -0,0 +1,133 @@
+package falcosc.locus.addon.tasker.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrackPointIndexTest {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final double TOLERANCE_METERS = 10.0;
+    private static final int QUERIES = 2000;
+
+    private final double[] mLats;
+    private final double[] mLons;
+
+    public TrackPointIndexTest() {
+        //out and back: the second half visits the points of the first half in reverse order
+        Random random = new Random(1L);
+        int half = 1500;
+        mLats = new double[half * 2];
+        mLons = new double[half * 2];
+        double lat = 47.0;
+        double lon = 11.0;
+        for (int i = 0; i < half; i++) {
+            lat += random.nextGaussian() * 0.00005;
+            lon += random.nextGaussian() * 0.00005;
+            mLats[i] = lat;
+            mLons[i] = lon;
+            mLats[(half * 2) - 1 - i] = lat;
+            mLons[(half * 2) - 1 - i] = lon;
+        }
+    }
+
+    /**
+     * Exact match search as it was before the grid: ahead of the previous index first, then backwards
+     */
+    @SuppressWarnings("FloatingPointEquality")
+    private int linearExactMatch(double lat, double lon, int previousIndex) {
+        int start = Math.min(Math.max(previousIndex - 5, 0), mLats.length - 1);
+        for (int i = start; i < mLats.length; i++) {
+            if ((mLats[i] == lat) && (mLons[i] == lon)) {
+                return i;
+            }
+        }
+        for (int i = start; i >= 0; i--) {
+            if ((mLats[i] == lat) && (mLons[i] == lon)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Nearest point within the tolerance, ties like the exact search
+     */
+    private int linearNearestMatch(double lat, double lon, int previousIndex, double toleranceMeters) {
+        int start = Math.min(Math.max(previousIndex - 5, 0), mLats.length - 1);
+        double lonScale = Math.max(0.01, Math.cos(Math.toRadians(mLats[mLats.length / 2])));
+        double maxDistance = (toleranceMeters / METERS_PER_DEGREE) * (toleranceMeters / METERS_PER_DEGREE);
+        double bestDistance = Double.MAX_VALUE;
+        int bestIndex = -1;
+        //ahead first, so only a nearer point replaces an earlier one
+        for (int i = start; i < mLats.length; i++) {
+            double distance = distance(lat, lon, i, lonScale);
+            if ((distance <= maxDistance) && (distance < bestDistance)) {
+                bestDistance = distance;
+                bestIndex = i;
+            }
+        }
+        for (int i = start - 1; i >= 0; i--) {
+            double distance = distance(lat, lon, i, lonScale);
+            if ((distance <= maxDistance) && (distance < bestDistance)) {
+                bestDistance = distance;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    private double distance(double lat, double lon, int index, double lonScale) {
+        double dLat = mLats[index] - lat;
+        double dLon = (mLons[index] - lon) * lonScale;
+        return (dLat * dLat) + (dLon * dLon);
+    }
+
+    @Test
+    public void exactMatchesLikeLinearScan() {
+        TrackPointIndex index = new TrackPointIndex(mLats, mLons, 0.0);
+        Random random = new Random(2L);
+        for (int q = 0; q < QUERIES; q++) {
+            int point = random.nextInt(mLats.length);
+            int previousIndex = random.nextInt(mLats.length);
+            assertEquals("point " + point + " previous " + previousIndex,
+                    linearExactMatch(mLats[point], mLons[point], previousIndex),
+                    index.findMatchingPointIndex(mLats[point], mLons[point], previousIndex));
+        }
+    }
+
+    @Test
+    public void outAndBackPrefersThePointAhead() {
+        TrackPointIndex index = new TrackPointIndex(mLats, mLons, 0.0);
+        int last = mLats.length - 1;
+        //the way back is ahead of the previous index, the way out is behind it
+        assertEquals(last - 100, index.findMatchingPointIndex(mLats[100], mLons[100], last - 200));
+        assertEquals(100, index.findMatchingPointIndex(mLats[100], mLons[100], 50));
+        //both are behind, the closest one wins
+        assertEquals(last - 100, index.findMatchingPointIndex(mLats[100], mLons[100], last));
+    }
+
+    @Test
+    public void nearestMatchWithinToleranceLikeLinearScan() {
+        TrackPointIndex index = new TrackPointIndex(mLats, mLons, TOLERANCE_METERS);
+        Random random = new Random(3L);
+        for (int q = 0; q < QUERIES; q++) {
+            int point = random.nextInt(mLats.length);
+            double lat = mLats[point] + (random.nextGaussian() * 0.00005);
+            double lon = mLons[point] + (random.nextGaussian() * 0.00005);
+            int previousIndex = random.nextInt(mLats.length);
+            assertEquals("point " + point + " previous " + previousIndex,
+                    linearNearestMatch(lat, lon, previousIndex, TOLERANCE_METERS),
+                    index.findMatchingPointIndex(lat, lon, previousIndex));
+        }
+    }
+
+    @Test
+    public void noMatchOutsideTolerance() {
+        TrackPointIndex index = new TrackPointIndex(mLats, mLons, TOLERANCE_METERS);
+        assertEquals(-1, index.findMatchingPointIndex(0.0, 0.0, 0));
+        assertEquals(-1, new TrackPointIndex(new double[0], new double[0], TOLERANCE_METERS).findMatchingPointIndex(47.0, 11.0, 0));
+    }
+}